@@ -0,0 +1,63 @@
+package VehicleIdentificationSystem;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * AppendOnlyList - list that many threads may read while one appender at a time grows it
+ * - Elements live in fixed 4096-slot chunks, so growth never copies elements
+ * - size is published last (volatile), so any index below size() is safe to read without locking
+ */
+final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int SHIFT = 12, CHUNK = 1 << SHIFT, MASK = CHUNK - 1;
+
+    private volatile Object[][] chunks = new Object[16][];
+    private volatile int size;
+
+    AppendOnlyList() {}
+
+    AppendOnlyList(Collection<? extends E> initial) {
+        appendAll(initial);
+    }
+
+    /** Appends e and returns its index. */
+    synchronized int append(E e) {
+        int i = size;
+        slot(i)[i & MASK] = e;
+        size = i + 1;
+        return i;
+    }
+
+    /** Appends all elements in order and returns the index of the first. */
+    synchronized int appendAll(Collection<? extends E> c) {
+        int first = size, i = first;
+        for (E e : c) { slot(i)[i & MASK] = e; i++; }
+        size = i;
+        return first;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return (E) chunks[index >> SHIFT][index & MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Object[] slot(int i) {
+        int c = i >> SHIFT;
+        Object[][] dir = chunks;
+        if (c >= dir.length) {
+            Object[][] grown = new Object[dir.length * 2][];
+            System.arraycopy(dir, 0, grown, 0, dir.length);
+            chunks = dir = grown;
+        }
+        if (dir[c] == null) dir[c] = new Object[CHUNK];
+        return dir[c];
+    }
+}
@@ -0,0 +1,246 @@
+package VehicleIdentificationSystem;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * BitmapIndex - one bitmap per state, vehicle type, district code, insurance flag and PUC flag, by list position
+ * - A filter is an AND over fields of an OR within each field, e.g. type Truck, state Maharashtra, PUC not valid
+ * - Counts, matches and group-bys scan 64 vehicles per word and split the bitmaps across cores
+ * - Bitmaps are chunked and a chunk is only allocated once it holds a set bit, so a state's bitmap
+ *   covers little more than that state's shard
+ * - Kept current by add() on registration/import and changed() after issueInsurance / issuePUC
+ */
+final class BitmapIndex {
+    enum Field {
+        STATE(Vehicle::stateId, Vehicle.STATES),
+        TYPE(Vehicle::typeId, Vehicle.TYPES),
+        DISTRICT_CODE(Vehicle::districtCodeId, Vehicle.DISTRICT_CODES),
+        INSURED(v -> v.hasInsurance ? 1 : 0, null),
+        PUC(v -> v.hasPUC ? 1 : 0, null);
+
+        private final ToIntFunction<Vehicle> value;
+        private final Vocabulary words;
+
+        Field(ToIntFunction<Vehicle> value, Vocabulary words) { this.value = value; this.words = words; }
+
+        String label(int id) { return words != null ? words.text(id) : id == 1 ? "Yes" : "No"; }
+
+        // -1 when no vehicle could have this value
+        int id(String label) {
+            if (words != null) return words.find(label);
+            return "Yes".equalsIgnoreCase(label) ? 1 : "No".equalsIgnoreCase(label) ? 0 : -1;
+        }
+    }
+
+    /** Filter over the indexed fields; an empty query matches every vehicle. */
+    static final class Query {
+        private final EnumMap<Field, Set<String>> anyOf = new EnumMap<>(Field.class);
+        private final EnumMap<ExpiryIndex.Kind, Boolean> valid = new EnumMap<>(ExpiryIndex.Kind.class);
+
+        /** Keeps vehicles whose field equals one of values; repeated calls for one field add values. */
+        Query where(Field field, String... values) {
+            anyOf.computeIfAbsent(field, f -> new LinkedHashSet<>()).addAll(Arrays.asList(values));
+            return this;
+        }
+
+        /** Keeps vehicles whose insurance or PUC is (or is not) issued and unexpired today. */
+        Query valid(ExpiryIndex.Kind kind, boolean isValid) {
+            valid.put(kind, isValid);
+            return this;
+        }
+
+        boolean isEmpty() { return anyOf.isEmpty() && valid.isEmpty(); }
+    }
+
+    private static final int CHUNK_SHIFT = 10, CHUNK_WORDS = 1 << CHUNK_SHIFT;   // 65,536 vehicles per chunk
+
+    private final List<Vehicle> vehicles;
+    private final ExpiryIndex expiries;
+    private final EnumMap<Field, ConcurrentHashMap<Integer, Bitmap>> bitmaps = new EnumMap<>(Field.class);
+
+    BitmapIndex(List<Vehicle> vehicles, ExpiryIndex expiries) {
+        this.vehicles = vehicles;
+        this.expiries = expiries;
+        for (Field f : Field.values()) bitmaps.put(f, new ConcurrentHashMap<>());
+        for (int i = 0; i < vehicles.size(); i++) add(vehicles.get(i));
+    }
+
+    /** Indexes a vehicle that already has its list position. */
+    void add(Vehicle v) {
+        for (Field f : Field.values()) bitmap(f, f.value.applyAsInt(v)).set(v.index);
+    }
+
+    /** Moves v between the Yes/No bitmaps of the insurance and PUC flags; callers hold v's registry lock. */
+    void changed(Vehicle v) {
+        for (Field f : new Field[]{Field.INSURED, Field.PUC}) {
+            int now = f.value.applyAsInt(v);
+            bitmap(f, now).set(v.index);
+            bitmap(f, 1 - now).clear(v.index);
+        }
+    }
+
+    // ---- queries ----
+    int count(Query q) {
+        Term[] terms = terms(q);
+        if (terms == null) return 0;
+        int size = vehicles.size();
+        return IntStream.range(0, chunks(size)).parallel().map(c -> countChunk(terms, c, size)).sum();
+    }
+
+    /** List positions of every match, ascending. */
+    int[] matches(Query q) {
+        Term[] terms = terms(q);
+        if (terms == null) return new int[0];
+        int size = vehicles.size();
+        int[][] parts = IntStream.range(0, chunks(size)).parallel().mapToObj(c -> matchChunk(terms, c, size)).toArray(int[][]::new);
+        int n = 0;
+        for (int[] p : parts) n += p.length;
+        int[] out = new int[n];
+        int at = 0;
+        for (int[] p : parts) { System.arraycopy(p, 0, out, at, p.length); at += p.length; }
+        return out;
+    }
+
+    /** Matches counted per value of by, largest group first; values with no match are left out. */
+    Map<String, Integer> countBy(Query q, Field by) {
+        Term[] terms = terms(q);
+        Map<String, Integer> out = new LinkedHashMap<>();
+        if (terms == null) return out;
+        int size = vehicles.size();
+        List<Map.Entry<String, Integer>> groups = new ArrayList<>();
+        for (Map.Entry<Integer, Bitmap> g : bitmaps.get(by).entrySet()) {
+            Term[] with = Arrays.copyOf(terms, terms.length + 1);
+            with[terms.length] = g.getValue()::word;
+            int n = IntStream.range(0, chunks(size)).parallel().map(c -> countChunk(with, c, size)).sum();
+            if (n > 0) groups.add(new AbstractMap.SimpleImmutableEntry<>(by.label(g.getKey()), n));
+        }
+        groups.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        for (Map.Entry<String, Integer> e : groups) out.put(e.getKey(), e.getValue());
+        return out;
+    }
+
+    /** Two-level group-by, e.g. count by type per district code: outer value -> inner value -> count. */
+    Map<String, Map<String, Integer>> countBy(Query q, Field outer, Field inner) {
+        Map<String, Map<String, Integer>> out = new LinkedHashMap<>();
+        for (String value : countBy(q, outer).keySet()) out.put(value, countBy(copy(q).where(outer, value), inner));
+        return out;
+    }
+
+    private static Query copy(Query q) {
+        Query c = new Query();
+        q.anyOf.forEach((f, values) -> c.anyOf.put(f, new LinkedHashSet<>(values)));
+        c.valid.putAll(q.valid);
+        return c;
+    }
+
+    // ---- evaluation ----
+    /** One word (64 vehicles) of a filter term. */
+    private interface Term { long word(int w); }
+
+    // null when some field asks only for values no vehicle has, so nothing can match
+    private Term[] terms(Query q) {
+        List<Term> out = new ArrayList<>();
+        for (Map.Entry<Field, Set<String>> e : q.anyOf.entrySet()) {
+            List<Bitmap> any = new ArrayList<>();
+            for (String label : e.getValue()) {
+                int id = e.getKey().id(label);
+                Bitmap b = id < 0 ? null : bitmaps.get(e.getKey()).get(id);
+                if (b != null) any.add(b);
+            }
+            if (any.isEmpty()) return null;
+            if (any.size() == 1) { out.add(any.get(0)::word); continue; }
+            Bitmap[] or = any.toArray(new Bitmap[0]);
+            out.add(w -> { long x = 0; for (Bitmap b : or) x |= b.word(w); return x; });
+        }
+        for (Map.Entry<ExpiryIndex.Kind, Boolean> e : q.valid.entrySet()) {
+            long[] valid = validWords(e.getKey());
+            if (e.getValue()) out.add(w -> w < valid.length ? valid[w] : 0);
+            else out.add(w -> ~(w < valid.length ? valid[w] : 0));
+        }
+        return out.toArray(new Term[0]);
+    }
+
+    // issued and not lapsed today, as of this call
+    private long[] validWords(ExpiryIndex.Kind kind) {
+        Bitmap issued = bitmaps.get(kind == ExpiryIndex.Kind.INSURANCE ? Field.INSURED : Field.PUC).get(1);
+        int size = vehicles.size();
+        long[] words = new long[(size + 63) >>> 6];
+        if (issued == null) return words;
+        for (int w = 0; w < words.length; w++) words[w] = issued.word(w);
+        expiries.forEachLapsed(kind, LocalDate.now(), v -> { if (v.index >= 0 && v.index < size) words[v.index >>> 6] &= ~(1L << v.index); });
+        return words;
+    }
+
+    private static int chunks(int size) { return (((size + 63) >>> 6) + CHUNK_WORDS - 1) >>> CHUNK_SHIFT; }
+
+    private static long match(Term[] terms, int w, int size) {
+        long x = lastWordMask(w, size);
+        for (int t = 0; t < terms.length && x != 0; t++) x &= terms[t].word(w);
+        return x;
+    }
+
+    // bits past the end of the list are never matches, even under a negated term
+    private static long lastWordMask(int w, int size) {
+        int left = size - (w << 6);
+        return left >= 64 ? -1L : left <= 0 ? 0 : (1L << left) - 1;
+    }
+
+    private static int countChunk(Term[] terms, int chunk, int size) {
+        int n = 0, end = Math.min((chunk + 1) << CHUNK_SHIFT, (size + 63) >>> 6);
+        for (int w = chunk << CHUNK_SHIFT; w < end; w++) n += Long.bitCount(match(terms, w, size));
+        return n;
+    }
+
+    private static int[] matchChunk(Term[] terms, int chunk, int size) {
+        int[] out = new int[64];
+        int n = 0, end = Math.min((chunk + 1) << CHUNK_SHIFT, (size + 63) >>> 6);
+        for (int w = chunk << CHUNK_SHIFT; w < end; w++) {
+            for (long x = match(terms, w, size); x != 0; x &= x - 1) {
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = (w << 6) + Long.numberOfTrailingZeros(x);
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private Bitmap bitmap(Field f, int id) { return bitmaps.get(f).computeIfAbsent(id, k -> new Bitmap()); }
+
+    /** Growable bitmap of list positions; chunks appear on first set bit, bits are set and cleared atomically. */
+    private static final class Bitmap {
+        private volatile AtomicLongArray[] chunks = new AtomicLongArray[16];
+
+        void set(int i) { chunk(i >>> 6 >>> CHUNK_SHIFT, true).getAndAccumulate(i >>> 6 & (CHUNK_WORDS - 1), 1L << i, (a, b) -> a | b); }
+
+        void clear(int i) {
+            AtomicLongArray c = chunk(i >>> 6 >>> CHUNK_SHIFT, false);
+            if (c != null) c.getAndAccumulate(i >>> 6 & (CHUNK_WORDS - 1), ~(1L << i), (a, b) -> a & b);
+        }
+
+        long word(int w) {
+            AtomicLongArray[] cs = chunks;
+            int c = w >>> CHUNK_SHIFT;
+            AtomicLongArray chunk = c < cs.length ? cs[c] : null;
+            return chunk == null ? 0 : chunk.get(w & (CHUNK_WORDS - 1));
+        }
+
+        private AtomicLongArray chunk(int c, boolean create) {
+            AtomicLongArray[] cs = chunks;
+            AtomicLongArray chunk = c < cs.length ? cs[c] : null;
+            if (chunk != null || !create) return chunk;
+            synchronized (this) {
+                cs = chunks;
+                if (c >= cs.length) cs = Arrays.copyOf(cs, Math.max(c + 1, cs.length * 2));
+                if (cs[c] == null) cs[c] = new AtomicLongArray(CHUNK_WORDS);
+                chunks = cs;
+                return cs[c];
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package VehicleIdentificationSystem;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * ChallanLedger - append-only history of challan charges and payments, amounts in paise
+ * - challans.journal is never compacted: it is the record of what was charged and collected
+ * - Issued and collected totals are kept per district, per state and overall and updated on
+ *   every event, so outstanding and collected figures are O(1) reads
+ * - The ledger is authoritative for balances: load() sets each vehicle's challanAmount from it,
+ *   and balances() rebuilds them from the journal alone
+ * - Vehicles that already carry a balance but have no history get an OPENING event
+ *   (first run, or vehicles from a CSV import)
+ */
+final class ChallanLedger {
+    enum Kind { OPENING, ISSUE, PAYMENT }
+
+    /** One ledger entry; amount is always positive, kind says which way it moves the balance. */
+    static final class Event {
+        final Kind kind;
+        final long paise, at;
+        final String regNumber, state, districtCode;
+
+        Event(Kind kind, long paise, long at, String regNumber, String state, String districtCode) {
+            this.kind = kind; this.paise = paise; this.at = at;
+            this.regNumber = regNumber; this.state = state; this.districtCode = districtCode;
+        }
+
+        long delta() { return kind == Kind.PAYMENT ? -paise : paise; }
+    }
+
+    /** Running totals for one district, one state or the whole registry. */
+    static final class Totals {
+        private final LongAdder issued = new LongAdder(), collected = new LongAdder();
+
+        long issued() { return issued.sum(); }
+        long collected() { return collected.sum(); }
+        long outstanding() { return issued.sum() - collected.sum(); }
+
+        private void apply(Event e) {
+            if (e.kind == Kind.PAYMENT) collected.add(e.paise);
+            else issued.add(e.paise);
+        }
+    }
+
+    private static final Totals NONE = new Totals();
+
+    private final RecordLog journal = new RecordLog(VehicleSystemPortal.Storage.dataFile("challans.journal").getPath());
+    private final Totals overall = new Totals();
+    private final ConcurrentHashMap<String, Totals> byState = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Totals> byDistrict = new ConcurrentHashMap<>();
+
+    /** Replays the journal into the totals and reconciles the vehicles' balances with it. */
+    static ChallanLedger load(Iterable<Vehicle> vehicles) {
+        ChallanLedger l = new ChallanLedger();
+        Map<String, Long> balances = new HashMap<>();
+        try {
+            l.journal.replay(bytes -> {
+                Event e = decode(bytes);
+                if (e == null) return;
+                l.tally(e);
+                balances.merge(e.regNumber, e.delta(), Long::sum);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        List<Event> opening = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Vehicle v : vehicles) {
+            Long ledger = balances.get(key(v));
+            if (ledger == null) {
+                long held = paise(v.challanAmount);
+                if (held > 0) opening.add(new Event(Kind.OPENING, held, now, key(v), v.state(), v.districtCode()));
+            } else if (ledger != paise(v.challanAmount)) {
+                // a crash between the ledger write and the vehicle journal write: the ledger wins
+                v.challanAmount = ledger / 100.0;
+                v.rendered = null;
+            }
+        }
+        l.append(opening);
+        return l;
+    }
+
+    // ---- recording (callers hold the vehicle's registry lock, so a vehicle's events stay in order) ----
+    void issued(Vehicle v, long paise) { record(Kind.ISSUE, v, paise); }
+
+    void paid(Vehicle v, long paise) { record(Kind.PAYMENT, v, paise); }
+
+    /** Opening balances for vehicles added in bulk (CSV import). */
+    void opened(List<Vehicle> batch) {
+        List<Event> opening = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Vehicle v : batch) {
+            long held = paise(v.challanAmount);
+            if (held > 0) opening.add(new Event(Kind.OPENING, held, now, key(v), v.state(), v.districtCode()));
+        }
+        append(opening);
+    }
+
+    private void record(Kind kind, Vehicle v, long paise) {
+        if (paise <= 0) return;
+        append(List.of(new Event(kind, paise, System.currentTimeMillis(), key(v), v.state(), v.districtCode())));
+    }
+
+    private void append(List<Event> events) {
+        if (events.isEmpty()) return;
+        List<byte[]> records = new ArrayList<>(events.size());
+        for (Event e : events) records.add(encode(e));
+        try {
+            journal.appendAll(records);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Event e : events) tally(e);
+    }
+
+    private void tally(Event e) {
+        overall.apply(e);
+        byState.computeIfAbsent(e.state, k -> new Totals()).apply(e);
+        byDistrict.computeIfAbsent(districtKey(e.state, e.districtCode), k -> new Totals()).apply(e);
+    }
+
+    // ---- totals ----
+    Totals overall() { return overall; }
+
+    Totals state(String state) { return byState.getOrDefault(state, NONE); }
+
+    Totals district(String state, String districtCode) { return byDistrict.getOrDefault(districtKey(state, districtCode), NONE); }
+
+    // ---- rebuilding from the journal ----
+    /** Balance in paise per canonical registration number, recomputed from every event on disk. */
+    Map<String, Long> balances() throws IOException {
+        Map<String, Long> out = new HashMap<>();
+        journal.replay(bytes -> {
+            Event e = decode(bytes);
+            if (e != null) out.merge(e.regNumber, e.delta(), Long::sum);
+        });
+        return out;
+    }
+
+    /** Every event for one vehicle, oldest first. Reads the whole journal; meant for a detail view. */
+    List<Event> history(String regNumber) throws IOException {
+        String k = VehicleSystemPortal.canonicalReg(regNumber);
+        List<Event> out = new ArrayList<>();
+        journal.replay(bytes -> {
+            Event e = decode(bytes);
+            if (e != null && e.regNumber.equals(k)) out.add(e);
+        });
+        return out;
+    }
+
+    /** Largest single balance or charge accepted, in rupees; far below where paise totals could overflow. */
+    static final double MAX_RUPEES = 10_000_000;
+
+    static long paise(double rupees) { return Math.round(rupees * 100); }
+
+    private static String key(Vehicle v) { return VehicleSystemPortal.canonicalReg(v.getRegNumber()); }
+
+    private static String districtKey(String state, String districtCode) { return state + "|" + districtCode; }
+
+    // ---- encoding ----
+    private static byte[] encode(Event e) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(48);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeByte(e.kind.ordinal());
+            out.writeLong(e.paise);
+            out.writeLong(e.at);
+            out.writeUTF(e.regNumber);
+            out.writeUTF(e.state == null ? "" : e.state);
+            out.writeUTF(e.districtCode == null ? "" : e.districtCode);
+        } catch (IOException impossible) {
+            throw new UncheckedIOException(impossible);
+        }
+        return bos.toByteArray();
+    }
+
+    private static Event decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int kind = in.readUnsignedByte();
+            if (kind >= Kind.values().length) return null;
+            return new Event(Kind.values()[kind], in.readLong(), in.readLong(), in.readUTF(), in.readUTF(), in.readUTF());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package VehicleIdentificationSystem;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CredentialService - salted PBKDF2 password checks off the Swing event thread
+ * - Hashing runs on a small worker pool; callers get a CompletableFuture
+ * - The iteration count is calibrated at startup to roughly TARGET_MILLIS per hash, rounded down to a power
+ *   of two; stored hashes are only redone below half of it, so timing noise between starts doesn't rehash
+ * - Legacy plaintext accounts are re-hashed on their first successful login, which rewrites users.dat without the plaintext
+ * - The user store may still be loading when the service is created; checks wait for it on the pool
+ */
+public class CredentialService {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final long TARGET_MILLIS = 100;
+    private static final int MIN_ITERATIONS = 10_000;
+    private static final int MAX_ITERATIONS = 2_000_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final CompletableFuture<UserStore> store;
+    private final SecureRandom random = new SecureRandom();
+    private final ExecutorService pool;
+    private final CompletableFuture<Integer> iterations;
+
+    public CredentialService(UserStore users) {
+        this(CompletableFuture.completedFuture(users));
+    }
+
+    public CredentialService(CompletableFuture<UserStore> users) {
+        this.store = users;
+        int workers = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "credential-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.iterations = CompletableFuture.supplyAsync(CredentialService::calibrate, pool);
+    }
+
+    /** Completes with true when the password matches; migrates plaintext or under-strength hashes. */
+    public CompletableFuture<Boolean> verify(String username, char[] password) {
+        long t0 = System.nanoTime();
+        return iterations.thenCombineAsync(store, (target, users) -> {
+            try {
+                User u = users.find(username);
+                if (u == null) {
+                    // burn the same time as a real check so unknown names aren't distinguishable
+                    hash(password, new byte[SALT_BYTES], target);
+                    return false;
+                }
+                boolean ok;
+                if (u.isHashed()) {
+                    ok = MessageDigest.isEqual(u.passwordHash, hash(password, u.salt, u.iterations));
+                } else {
+                    ok = u.getPassword() != null && u.getPassword().equals(new String(password));
+                }
+                // calibration is re-measured every start and jitters, so only a clearly weaker hash is redone
+                if (ok && (!u.isHashed() || u.iterations < target / 2)) users.update(newUser(username, password, target));
+                return ok;
+            } finally {
+                Arrays.fill(password, '\0');
+            }
+        }, pool).whenComplete((ok, err) -> {
+            PortalMetrics.LOGIN.record(t0);
+            PortalMetrics.count(err != null ? "login.error" : ok ? "login.ok" : "login.rejected");
+        });
+    }
+
+    /** Completes with false when the username is already taken. */
+    public CompletableFuture<Boolean> register(String username, char[] password) {
+        return iterations.thenCombineAsync(store, (target, users) -> {
+            try {
+                if (users.exists(username)) return false;
+                return users.add(newUser(username, password, target));
+            } finally {
+                Arrays.fill(password, '\0');
+            }
+        }, pool);
+    }
+
+    private User newUser(String username, char[] password, int iters) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return new User(username, salt, hash(password, salt, iters), iters);
+    }
+
+    static byte[] hash(char[] password, byte[] salt, int iters) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iters, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // Times a fixed probe (after a warm-up) and scales it to the latency budget, in coarse steps.
+    private static int calibrate() {
+        char[] probe = "calibration".toCharArray();
+        byte[] salt = new byte[SALT_BYTES];
+        hash(probe, salt, MIN_ITERATIONS);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long t0 = System.nanoTime();
+            hash(probe, salt, MIN_ITERATIONS);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        long perIter = Math.max(1, best / MIN_ITERATIONS);
+        long iters = TARGET_MILLIS * 1_000_000L / perIter;
+        // rounded down to a power of two: the measurement swings with JIT warm-up from one start to the next
+        return Math.max(MIN_ITERATIONS, Integer.highestOneBit((int) Math.min(MAX_ITERATIONS, iters)));
+    }
+}
@@ -0,0 +1,100 @@
+package VehicleIdentificationSystem;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * CsvExporter - streams vehicles to CSV without String.format
+ * - Output matches the original PrintWriter/printf export byte for byte
+ *   (header ends with the platform line separator, rows with "\n")
+ * - Rows are built in one reusable StringBuilder and written through a 1 MiB buffer
+ */
+final class CsvExporter {
+    static final String HEADER = "RegNumber,Owner,Type,Brand,Model,State,District,DistrictCode,RegisteredDate,Challan,HasInsurance,InsuranceExpiry,HasPUC,PUCExpiry";
+    private static final int BUFFER = 1 << 20;
+    private static final int PROGRESS_EVERY = 8192;
+
+    /** Receives progress; returning false cancels the export. */
+    interface Progress { boolean update(int done, int total); }
+
+    private CsvExporter() {}
+
+    /** Writes all rows; returns the number written, or -1 if cancelled. */
+    static int export(Vehicle[] rows, Path target, Progress progress) throws IOException {
+        boolean plainDigits = plainDecimalLocale();
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(target), Charset.defaultCharset()), BUFFER)) {
+            w.write(HEADER);
+            w.write(System.lineSeparator());
+            StringBuilder sb = new StringBuilder(64 * 1024 + 1024);
+            for (int i = 0; i < rows.length; i++) {
+                appendRow(sb, rows[i], plainDigits);
+                if (sb.length() >= 64 * 1024) { w.append(sb); sb.setLength(0); }
+                if ((i + 1) % PROGRESS_EVERY == 0 && !progress.update(i + 1, rows.length)) return -1;
+            }
+            w.append(sb);
+        }
+        progress.update(rows.length, rows.length);
+        return rows.length;
+    }
+
+    static void appendRow(StringBuilder sb, Vehicle v) {
+        appendRow(sb, v, plainDecimalLocale());
+    }
+
+    private static void appendRow(StringBuilder sb, Vehicle v, boolean plainDigits) {
+        quoted(sb, v.getRegNumber()).append(',');
+        quoted(sb, escape(v.owner)).append(',');
+        quoted(sb, v.type()).append(',');
+        quoted(sb, escape(v.brand())).append(',');
+        quoted(sb, escape(v.model())).append(',');
+        quoted(sb, escape(v.state())).append(',');
+        quoted(sb, escape(v.district())).append(',');
+        quoted(sb, escape(v.districtCode())).append(',');
+        LocalDate r = v.registrationDate();
+        sb.append('"'); two(sb, r.getDayOfMonth()).append('-'); two(sb, r.getMonthValue()).append('-').append(r.getYear()).append('"').append(',');
+        money(sb, v.challanAmount, plainDigits).append(',');
+        sb.append(v.hasInsurance).append(',');
+        if (v.insuranceExpiry() != null) sb.append(v.insuranceExpiry());
+        sb.append(',').append(v.hasPUC).append(',');
+        if (v.pucExpiry() != null) sb.append(v.pucExpiry());
+        sb.append('\n');
+    }
+
+    private static StringBuilder quoted(StringBuilder sb, String s) {
+        return sb.append('"').append(s).append('"');
+    }
+
+    private static String escape(String s) {
+        if (s == null) return "";
+        return s.indexOf('"') < 0 ? s : s.replace("\"", "\"\"");
+    }
+
+    private static StringBuilder two(StringBuilder sb, int n) {
+        if (n < 10) sb.append('0');
+        return sb.append(n);
+    }
+
+    // Same digits as "%.2f": whole-paise values take the fast path, anything else defers to Formatter.
+    static StringBuilder money(StringBuilder sb, double d, boolean plainDigits) {
+        if (plainDigits && d >= 0 && d < 1e12 && Double.doubleToRawLongBits(d) != Long.MIN_VALUE) {
+            long paise = Math.round(d * 100);
+            if (paise / 100.0 == d) {
+                sb.append(paise / 100).append('.');
+                return two(sb, (int) (paise % 100));
+            }
+        }
+        return sb.append(String.format("%.2f", d));
+    }
+
+    static boolean plainDecimalLocale() {
+        DecimalFormatSymbols sym = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        return sym.getDecimalSeparator() == '.' && sym.getZeroDigit() == '0';
+    }
+}
@@ -0,0 +1,124 @@
+package VehicleIdentificationSystem;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * CsvImporter - bulk registration from a dealer spreadsheet
+ * - Accepts the same columns exportCSV() writes; the RegNumber column is ignored
+ *   because every imported vehicle gets a freshly allocated number
+ * - Rows are parsed and validated in parallel; numbers are reserved in one
+ *   block per state|district through the registration allocator
+ */
+final class CsvImporter {
+    private static final DateTimeFormatter REG_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final int COLUMNS = 14;
+
+    static final class Result {
+        final List<Vehicle> accepted;
+        final List<String> rejected;
+        Result(List<Vehicle> accepted, List<String> rejected) { this.accepted = accepted; this.rejected = rejected; }
+    }
+
+    // A parsed row is either a vehicle without a number yet, or a rejection message.
+    private static final class Row {
+        final Vehicle vehicle; final String key; final String error;
+        Row(Vehicle vehicle, String key, String error) { this.vehicle = vehicle; this.key = key; this.error = error; }
+    }
+
+    private CsvImporter() {}
+
+    static Result read(Path file, RegNumberAllocator allocator) throws IOException {
+        List<String> lines = Files.readAllLines(file, Charset.defaultCharset());
+        int first = !lines.isEmpty() && lines.get(0).startsWith("RegNumber,") ? 1 : 0;
+        Row[] rows = IntStream.range(first, lines.size()).parallel()
+                .filter(i -> !lines.get(i).isBlank())
+                .mapToObj(i -> parse(lines.get(i), i + 1))
+                .toArray(Row[]::new);
+
+        List<String> rejected = new ArrayList<>();
+        Map<String, List<Vehicle>> byKey = new LinkedHashMap<>();
+        List<Vehicle> accepted = new ArrayList<>(rows.length);
+        for (Row r : rows) {
+            if (r.error != null) { rejected.add(r.error); continue; }
+            byKey.computeIfAbsent(r.key, k -> new ArrayList<>()).add(r.vehicle);
+            accepted.add(r.vehicle);
+        }
+        // one reservation per district instead of one allocator round-trip per row
+        for (Map.Entry<String, List<Vehicle>> e : byKey.entrySet()) {
+            List<Vehicle> group = e.getValue();
+            long seq = allocator.reserve(e.getKey(), group.size());
+            String[] key = e.getKey().split("\\|");
+            for (Vehicle v : group) v.setRegNumber(VehicleSystemPortal.formatRegNumber(key[0], key[1], seq++));
+        }
+        return new Result(accepted, rejected);
+    }
+
+    private static Row parse(String line, int lineNo) {
+        List<String> f = split(line);
+        if (f == null) return reject(lineNo, "unbalanced quotes");
+        if (f.size() != COLUMNS) return reject(lineNo, "expected " + COLUMNS + " columns, found " + f.size());
+        String owner = f.get(1).trim(), type = f.get(2).trim(), brand = f.get(3).trim(), model = f.get(4).trim(),
+               state = f.get(5).trim(), district = f.get(6).trim(), dcode = f.get(7).trim();
+        if (owner.isEmpty()) return reject(lineNo, "owner is required");
+        if (!Arrays.asList(VehicleSystemPortal.VEHICLE_TYPES).contains(type)) return reject(lineNo, "unknown vehicle type '" + type + "'");
+        if (!VehicleSystemPortal.isKnownState(state)) return reject(lineNo, "unknown state '" + state + "'");
+        if (district.isEmpty()) return reject(lineNo, "district is required");
+        String distCode;
+        try { distCode = VehicleSystemPortal.formatDistrictCode(dcode); }
+        catch (IllegalArgumentException ex) { return reject(lineNo, "invalid district code '" + dcode + "'"); }
+
+        Vehicle v = new Vehicle(type, brand, model, "", owner, state, district, distCode);
+        try {
+            if (!f.get(8).isBlank()) v.setRegistrationDate(LocalDate.parse(f.get(8).trim(), REG_DATE));
+            if (!f.get(9).isBlank()) v.challanAmount = Double.parseDouble(f.get(9).trim());
+            if (v.challanAmount < 0) return reject(lineNo, "negative challan");
+            // parseDouble takes NaN, Infinity and 1e308, any of which would break the ledger's paise totals
+            if (!(v.challanAmount <= ChallanLedger.MAX_RUPEES)) return reject(lineNo, "challan must be a number up to " + (long) ChallanLedger.MAX_RUPEES);
+            if (Boolean.parseBoolean(f.get(10).trim())) {
+                if (f.get(11).isBlank()) return reject(lineNo, "insurance expiry missing");
+                v.issueInsurance("", LocalDate.parse(f.get(11).trim()));
+            }
+            if (Boolean.parseBoolean(f.get(12).trim())) {
+                if (f.get(13).isBlank()) return reject(lineNo, "PUC expiry missing");
+                v.issuePUC(LocalDate.parse(f.get(13).trim()));
+            }
+        } catch (RuntimeException ex) {
+            return reject(lineNo, "bad value: " + ex.getMessage());
+        }
+        return new Row(v, VehicleSystemPortal.extractStateCode(state) + "|" + distCode, null);
+    }
+
+    private static Row reject(int lineNo, String why) {
+        return new Row(null, null, "Line " + lineNo + ": " + why);
+    }
+
+    // RFC 4180 style split: quoted fields may contain commas and doubled quotes.
+    private static List<String> split(String line) {
+        List<String> out = new ArrayList<>(COLUMNS);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                    else quoted = false;
+                } else cur.append(c);
+            } else if (c == '"') quoted = true;
+            else if (c == ',') { out.add(cur.toString()); cur.setLength(0); }
+            else cur.append(c);
+        }
+        if (quoted) return null;
+        out.add(cur.toString());
+        return out;
+    }
+}
@@ -0,0 +1,88 @@
+package VehicleIdentificationSystem;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * ExpiryIndex - vehicles bucketed by insurance / PUC expiry date
+ * - Sorted by epoch day, so "lapsed" and "expiring within N days" are range lookups
+ * - Skip-list of concurrent sets: updates from different sessions don't block each other
+ * - Kept current by calling changed() after issueInsurance / issuePUC
+ */
+final class ExpiryIndex {
+    enum Kind { INSURANCE, PUC }
+
+    private final EnumMap<Kind, ConcurrentSkipListMap<Long, Set<Vehicle>>> byKind = new EnumMap<>(Kind.class);
+
+    ExpiryIndex(Collection<Vehicle> vehicles) {
+        for (Kind k : Kind.values()) byKind.put(k, new ConcurrentSkipListMap<>());
+        for (Vehicle v : vehicles) add(v);
+    }
+
+    void add(Vehicle v) {
+        for (Kind k : Kind.values()) {
+            LocalDate d = expiry(v, k);
+            if (d != null) bucket(k, d).add(v);
+        }
+    }
+
+    /** Moves v from its previous expiry bucket to its current one; callers hold v's registry lock. */
+    void changed(Vehicle v, Kind kind, LocalDate previous) {
+        if (previous != null) {
+            Set<Vehicle> old = byKind.get(kind).get(previous.toEpochDay());
+            if (old != null) old.remove(v);
+        }
+        LocalDate d = expiry(v, kind);
+        if (d != null) bucket(kind, d).add(v);
+    }
+
+    /** Vehicles whose expiry falls in [from, to], earliest first. */
+    List<Vehicle> expiring(Kind kind, LocalDate from, LocalDate to) {
+        return collect(byKind.get(kind).subMap(from.toEpochDay(), true, to.toEpochDay(), true));
+    }
+
+    /** Vehicles whose expiry is before today, earliest first. */
+    List<Vehicle> lapsed(Kind kind, LocalDate today) {
+        return collect(byKind.get(kind).headMap(today.toEpochDay(), false));
+    }
+
+    /** Same vehicles as lapsed(), without building the list. */
+    void forEachLapsed(Kind kind, LocalDate today, Consumer<Vehicle> action) {
+        for (Set<Vehicle> bucket : byKind.get(kind).headMap(today.toEpochDay(), false).values()) bucket.forEach(action);
+    }
+
+    int countExpiring(Kind kind, LocalDate from, LocalDate to) {
+        return count(byKind.get(kind).subMap(from.toEpochDay(), true, to.toEpochDay(), true));
+    }
+
+    int countLapsed(Kind kind, LocalDate today) {
+        return count(byKind.get(kind).headMap(today.toEpochDay(), false));
+    }
+
+    // emptied buckets are left in place; removing them could race with a concurrent add
+    private Set<Vehicle> bucket(Kind kind, LocalDate d) {
+        return byKind.get(kind).computeIfAbsent(d.toEpochDay(), x -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static List<Vehicle> collect(ConcurrentNavigableMap<Long, Set<Vehicle>> range) {
+        List<Vehicle> out = new ArrayList<>();
+        for (Set<Vehicle> bucket : range.values()) out.addAll(bucket);
+        return out;
+    }
+
+    private static int count(ConcurrentNavigableMap<Long, Set<Vehicle>> range) {
+        int n = 0;
+        for (Set<Vehicle> bucket : range.values()) n += bucket.size();
+        return n;
+    }
+
+    static LocalDate expiry(Vehicle v, Kind kind) {
+        return kind == Kind.INSURANCE ? (v.hasInsurance ? v.insuranceExpiry() : null) : (v.hasPUC ? v.pucExpiry() : null);
+    }
+}
@@ -0,0 +1,58 @@
+package VehicleIdentificationSystem;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * HttpLoadTest - local lookup load test for RegistryHttpServer
+ * - Usage: java VehicleIdentificationSystem.HttpLoadTest [vehicles] [clients] [seconds]
+ * - Starts an in-process server on an ephemeral port over a synthetic registry
+ *   (in a throwaway data directory)
+ *   and reports sustained lookups per second
+ */
+public class HttpLoadTest {
+    public static void main(String[] args) throws Exception {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        System.setProperty("portal.data.dir", Files.createTempDirectory("http-load").toString());
+        VehicleRegistry registry = VehicleRegistry.inMemory(StorageFormatBench.sample(vehicles));
+        RegistryHttpServer server = new RegistryHttpServer(registry, 0);
+        server.start();
+        Vehicle[] all = registry.snapshot();
+        String base = "http://127.0.0.1:" + server.port() + "/api/vehicles/";
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        LongAdder ok = new LongAdder(), failed = new LongAdder();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            workers[i] = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    Vehicle v = all[ThreadLocalRandom.current().nextInt(all.length)];
+                    HttpRequest req = HttpRequest.newBuilder(URI.create(base + URLEncoder.encode(v.getRegNumber(), StandardCharsets.UTF_8).replace("+", "%20"))).GET().build();
+                    try {
+                        if (http.send(req, HttpResponse.BodyHandlers.ofString()).statusCode() == 200) ok.increment();
+                        else failed.increment();
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                }
+            }, "load-client-" + i);
+            workers[i].start();
+        }
+        for (Thread t : workers) t.join();
+        server.stop();
+        System.out.printf("%d clients, %d s: %,d ok, %,d failed, %,.0f lookups/s%n", clients, seconds, ok.sum(), failed.sum(), ok.sum() / (double) seconds);
+    }
+}
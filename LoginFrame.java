@@ -2,13 +2,15 @@ package VehicleIdentificationSystem;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class LoginFrame extends JFrame {
     private final CardLayout cardLayout = new CardLayout();
     private final JPanel cardPanel = new JPanel(cardLayout);
 
-    private final ArrayList<User> users = User.loadUsers();
+    // users.dat loads in the background; the form is on screen before it is read
+    private final CompletableFuture<UserStore> users = CompletableFuture.supplyAsync(UserStore::load);
+    private final CredentialService credentials = new CredentialService(users);
 
     public LoginFrame() {
         setTitle("Vehicle Portal - Login / Register");
@@ -39,6 +41,8 @@ public class LoginFrame extends JFrame {
         add(cardPanel, BorderLayout.CENTER);
 
         setVisible(true);
+        // the vehicle registry loads while the operator types their credentials
+        VehicleSystemPortal.preload();
     }
 
     // ----------- LOGIN PANEL -----------
@@ -87,15 +91,21 @@ public class LoginFrame extends JFrame {
                 JOptionPane.showMessageDialog(p, "Enter username and password");
                 return;
             }
-            for (User u : users) {
-                if (u.getUsername().equals(user) && u.getPassword().equals(pass)) {
+            btnLogin.setEnabled(false);
+            credentials.verify(user, pass.toCharArray()).whenComplete((ok, err) -> SwingUtilities.invokeLater(() -> {
+                btnLogin.setEnabled(true);
+                if (err == null && ok) {
                     JOptionPane.showMessageDialog(p, "Welcome, " + user + "!");
-                    dispose();
-                    SwingUtilities.invokeLater(() -> new VehicleSystemPortal(user));
+                    btnLogin.setEnabled(false); btnLogin.setText("Loading vehicles…"); setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                    VehicleSystemPortal.open(user).whenComplete((portal, loadErr) -> {
+                        if (loadErr == null) { dispose(); return; }
+                        setCursor(Cursor.getDefaultCursor()); btnLogin.setText("Login"); btnLogin.setEnabled(true);
+                        JOptionPane.showMessageDialog(p, "Could not load vehicles: " + loadErr.getMessage());
+                    });
                     return;
                 }
-            }
-            JOptionPane.showMessageDialog(p, "Invalid credentials");
+                JOptionPane.showMessageDialog(p, err == null ? "Invalid credentials" : "Login failed: " + err.getMessage());
+            }));
         });
 
         return p;
@@ -156,16 +166,18 @@ public class LoginFrame extends JFrame {
                 JOptionPane.showMessageDialog(p, "Passwords do not match");
                 return;
             }
-            for (User u : users) {
-                if (u.getUsername().equals(user)) {
+            btnRegister.setEnabled(false);
+            credentials.register(user, pass.toCharArray()).whenComplete((created, err) -> SwingUtilities.invokeLater(() -> {
+                btnRegister.setEnabled(true);
+                if (err != null) {
+                    JOptionPane.showMessageDialog(p, "Registration failed: " + err.getMessage());
+                } else if (!created) {
                     JOptionPane.showMessageDialog(p, "Username already exists");
-                    return;
+                } else {
+                    JOptionPane.showMessageDialog(p, "Account created successfully! You can now login.");
+                    cardLayout.show(cardPanel, "LOGIN");
                 }
-            }
-            users.add(new User(user, pass));
-            User.saveUsers(users);
-            JOptionPane.showMessageDialog(p, "Account created successfully! You can now login.");
-            cardLayout.show(cardPanel, "LOGIN");
+            }));
         });
 
         return p;
@@ -173,6 +185,8 @@ public class LoginFrame extends JFrame {
 
     // ---- main for testing ----
     public static void main(String[] args) {
+        PortalMetrics.install();
+        PortalMetrics.startEdtWatchdog(Long.getLong("portal.edt.stallMillis", 200));
         SwingUtilities.invokeLater(LoginFrame::new);
     }
 }
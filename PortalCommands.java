@@ -0,0 +1,80 @@
+package VehicleIdentificationSystem;
+
+import javax.swing.SwingUtilities;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+/**
+ * PortalCommands - runs the portal's disk-touching operations off the event dispatch thread
+ * - One worker executes commands in submission order; run() hands each result back on the EDT
+ * - At most QUEUE_LIMIT commands wait at once: a full queue rejects EDT submissions straight away
+ *   (the UI reports "busy" instead of freezing) and blocks any other submitting thread
+ * - saveLater() coalesces: a save requested while the same save is still pending is dropped
+ * - shutdown() lets queued commands and pending saves finish, then runs one final action
+ */
+final class PortalCommands {
+    static final int QUEUE_LIMIT = 64;
+    private static final long SAVE_DELAY_MILLIS = 500;
+
+    private final ScheduledThreadPoolExecutor worker = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "portal-commands");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Semaphore room = new Semaphore(QUEUE_LIMIT);
+    private final Set<Runnable> pendingSaves = ConcurrentHashMap.newKeySet();
+
+    /** Queues work; the future fails with RejectedExecutionException when the EDT finds the queue full. */
+    <T> CompletableFuture<T> submit(Callable<T> work) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        boolean admitted = SwingUtilities.isEventDispatchThread() ? room.tryAcquire() : acquire();
+        if (!admitted) {
+            PortalMetrics.count("commands.rejected");
+            f.completeExceptionally(new RejectedExecutionException("The portal is busy (" + QUEUE_LIMIT + " operations waiting); try again shortly"));
+            return f;
+        }
+        try {
+            worker.execute(() -> {
+                try { f.complete(work.call()); }
+                catch (Throwable t) { f.completeExceptionally(t); }
+                finally { room.release(); }
+            });
+        } catch (RejectedExecutionException e) {
+            room.release();
+            f.completeExceptionally(e);
+        }
+        return f;
+    }
+
+    /** Runs work in the background, then passes its result or failure (never both) to onEdt on the EDT. */
+    <T> void run(Callable<T> work, BiConsumer<T, Throwable> onEdt) {
+        submit(work).whenComplete((r, err) -> SwingUtilities.invokeLater(() -> onEdt.accept(r, err instanceof CompletionException ? err.getCause() : err)));
+    }
+
+    /** Schedules save shortly; repeated requests for the same Runnable before it runs share one write. */
+    void saveLater(Runnable save) {
+        if (!pendingSaves.add(save)) return;
+        try {
+            worker.schedule(() -> { pendingSaves.remove(save); save.run(); }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // already shutting down: the final save covers it
+            pendingSaves.remove(save);
+        }
+    }
+
+    /** Drains queued commands and pending saves on a separate thread, then runs last (e.g. a full snapshot). */
+    CompletableFuture<Void> shutdown(Runnable last) {
+        return CompletableFuture.runAsync(() -> {
+            worker.shutdown();
+            try { worker.awaitTermination(2, TimeUnit.MINUTES); }
+            catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            last.run();
+        }, r -> new Thread(r, "portal-shutdown").start());
+    }
+
+    private boolean acquire() {
+        try { room.acquire(); return true; }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); return false; }
+    }
+}
@@ -0,0 +1,208 @@
+package VehicleIdentificationSystem;
+
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PortalMetrics - latency histograms, counters and an EDT stall watchdog
+ * - Latency: log-linear buckets (4 per power of two, so percentiles are within ~19%),
+ *   recorded with one nanoTime pair and a couple of atomic adds
+ * - Published as the platform MBean VehicleIdentificationSystem:type=PortalMetrics
+ * - -Dportal.metrics.file=path writes a text dump at exit; dump(path) writes one on demand
+ */
+final class PortalMetrics implements PortalMetricsMXBean {
+    static final String OBJECT_NAME = "VehicleIdentificationSystem:type=PortalMetrics";
+
+    private static final Map<String, Latency> LATENCIES = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    static final Latency LOAD_USERS = latency("User.loadUsers");
+    static final Latency SAVE_USERS = latency("User.saveUsers");
+    static final Latency LOGIN = latency("login");
+    static final Latency FIND = latency("findVehicleByReg");
+    static final Latency STORAGE_LOAD = latency("Storage.load");
+    static final Latency STORAGE_SAVE = latency("Storage.save");
+    static final Latency REG_NUMBER = latency("generateRegNumber");
+    static final Latency EXPORT = latency("exportCSV");
+    static final Latency EDT_STALL = latency("edt.stall");
+
+    private static final PortalMetrics INSTANCE = new PortalMetrics();
+    private static volatile boolean installed;
+
+    private PortalMetrics() {}
+
+    /** Registers the MBean and the optional exit dump; safe to call more than once. */
+    static synchronized void install() {
+        if (installed) return;
+        installed = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        String file = System.getProperty("portal.metrics.file");
+        if (file != null) Runtime.getRuntime().addShutdownHook(new Thread(() -> INSTANCE.dump(file), "metrics-dump"));
+    }
+
+    static Latency latency(String name) { return LATENCIES.computeIfAbsent(name, Latency::new); }
+
+    static void count(String name) { COUNTERS.computeIfAbsent(name, k -> new LongAdder()).increment(); }
+
+    // ---------- latency histogram ----------
+    static final class Latency {
+        private static final int SUB = 2, BUCKETS = 64 << SUB;
+        final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder(), total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Latency(String name) { this.name = name; }
+
+        /** Records the time since startNanos (a System.nanoTime() reading). */
+        void record(long startNanos) { recordNanos(System.nanoTime() - startNanos); }
+
+        void recordNanos(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            total.add(nanos);
+            long m = max.get();
+            while (nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+        }
+
+        private static int bucket(long n) {
+            if (n < (1 << SUB)) return (int) n;
+            int msb = 63 - Long.numberOfLeadingZeros(n);
+            return ((msb - SUB + 1) << SUB) | (int) ((n >>> (msb - SUB)) & ((1 << SUB) - 1));
+        }
+
+        // largest value that lands in bucket b
+        private static long upperBound(int b) {
+            if (b < (1 << SUB)) return b;
+            int msb = (b >>> SUB) + SUB - 1;
+            long base = 1L << msb, step = base >>> SUB;
+            return base + ((b & ((1 << SUB) - 1)) + 1) * step - 1;
+        }
+
+        long count() { return count.sum(); }
+
+        long percentileNanos(double p) {
+            long n = count.sum(), seen = 0;
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(p * n);
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) return Math.min(upperBound(b), max.get());
+            }
+            return max.get();
+        }
+
+        String summary() {
+            long n = count.sum();
+            return String.format(Locale.ROOT, "%-20s count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                    name, n, n == 0 ? 0 : total.sum() / 1e6 / n, percentileNanos(0.5) / 1e6, percentileNanos(0.9) / 1e6,
+                    percentileNanos(0.99) / 1e6, max.get() / 1e6);
+        }
+
+        void reset() {
+            for (int b = 0; b < BUCKETS; b++) buckets.set(b, 0);
+            count.reset(); total.reset(); max.set(0);
+        }
+    }
+
+    // ---------- EDT watchdog ----------
+    private static final int KEEP_STALLS = 20;
+    private static final ConcurrentLinkedDeque<String> STALLS = new ConcurrentLinkedDeque<>();
+    private static volatile Thread watchdog, edt;
+
+    /**
+     * Posts a heartbeat to the event dispatch thread every period; when one waits longer than
+     * thresholdMillis the stall is timed, counted and its EDT stack kept (last KEEP_STALLS).
+     */
+    static synchronized void startEdtWatchdog(long thresholdMillis) {
+        if (watchdog != null) return;
+        long period = Math.max(10, thresholdMillis / 4);
+        watchdog = new Thread(() -> {
+            while (true) {
+                AtomicLong ranAt = new AtomicLong();
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() -> { edt = Thread.currentThread(); ranAt.set(System.nanoTime()); });
+                StackTraceElement[] stack = null;
+                try {
+                    while (ranAt.get() == 0) {
+                        Thread.sleep(period);
+                        // sample once the threshold is crossed, while the EDT is still inside the slow handler
+                        Thread t = edt;
+                        if (stack == null && ranAt.get() == 0 && t != null && System.nanoTime() - posted > thresholdMillis * 1_000_000)
+                            stack = t.getStackTrace();
+                    }
+                    long waited = ranAt.get() - posted;
+                    if (stack != null) stalled(waited, stack);
+                    Thread.sleep(period);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "edt-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    private static void stalled(long nanos, StackTraceElement[] stack) {
+        EDT_STALL.recordNanos(nanos);
+        StringBuilder sb = new StringBuilder().append(Instant.now()).append(String.format(Locale.ROOT, "  EDT blocked %.0f ms", nanos / 1e6));
+        for (StackTraceElement e : stack) sb.append("\n    at ").append(e);
+        STALLS.addFirst(sb.toString());
+        while (STALLS.size() > KEEP_STALLS) STALLS.pollLast();
+    }
+
+    // ---------- MXBean ----------
+    @Override public String[] getLatencies() {
+        return LATENCIES.values().stream().sorted(Comparator.comparing(l -> l.name)).map(Latency::summary).toArray(String[]::new);
+    }
+
+    @Override public Map<String, Long> getCounters() {
+        Map<String, Long> out = new TreeMap<>();
+        COUNTERS.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    @Override public long getEdtStallCount() { return EDT_STALL.count(); }
+
+    @Override public String[] getRecentEdtStalls() { return STALLS.toArray(new String[0]); }
+
+    @Override public String dump(String path) {
+        File f = new File(path);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(f.toPath(), StandardCharsets.UTF_8))) {
+            out.println("# Vehicle portal metrics " + Instant.now());
+            out.println("## Latency");
+            for (String line : getLatencies()) out.println(line);
+            out.println("## Counters");
+            getCounters().forEach((k, v) -> out.println(k + " = " + v));
+            out.println("## Recent EDT stalls");
+            for (String s : getRecentEdtStalls()) out.println(s);
+        } catch (IOException e) {
+            return "failed: " + e;
+        }
+        return f.getAbsolutePath();
+    }
+
+    @Override public void reset() {
+        LATENCIES.values().forEach(Latency::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+        STALLS.clear();
+    }
+}
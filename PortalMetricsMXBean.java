@@ -0,0 +1,21 @@
+package VehicleIdentificationSystem;
+
+import java.util.Map;
+
+/** Management view of PortalMetrics (jconsole: VehicleIdentificationSystem / PortalMetrics). */
+public interface PortalMetricsMXBean {
+    /** One line per operation: count, mean, p50, p90, p99 and max in milliseconds. */
+    String[] getLatencies();
+
+    Map<String, Long> getCounters();
+
+    long getEdtStallCount();
+
+    /** Newest first, each with the EDT stack captured while it was blocked. */
+    String[] getRecentEdtStalls();
+
+    /** Writes a text dump to path and returns the absolute path written. */
+    String dump(String path);
+
+    void reset();
+}
@@ -0,0 +1,39 @@
+package VehicleIdentificationSystem;
+
+import java.time.format.DateTimeFormatter;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * RcRenderer - registration certificate (RC) text shown in the preview card and the Find dialog
+ * - One shared date formatter; the challan goes through CsvExporter's "%.2f" fast path
+ * - Vehicle.detailedInfo caches the text and drops it whenever the vehicle is mutated
+ */
+final class RcRenderer {
+    static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MMM-yyyy");
+    private static final boolean PLAIN_DIGITS = CsvExporter.plainDecimalLocale();
+
+    private RcRenderer() {}
+
+    static String render(Vehicle v) {
+        StringBuilder sb = new StringBuilder(320);
+        sb.append("Registration: ").append(v.getRegNumber()).append('\n');
+        sb.append("Owner: ").append(v.owner).append('\n');
+        sb.append("Type: ").append(v.type()).append('\n');
+        sb.append("Brand: ").append(v.brand()).append('\n');
+        sb.append("Model: ").append(v.model()).append('\n');
+        sb.append("State: ").append(v.state()).append('\n');
+        sb.append("District: ").append(v.district()).append(" (").append(v.districtCode()).append(")\n");
+        sb.append("Registered On: "); DATE.formatTo(v.registrationDate(), sb); sb.append('\n');
+        sb.append("Insurance: ");
+        if (v.hasInsurance) { sb.append(v.insuranceProvider()).append(" until "); DATE.formatTo(v.insuranceExpiry(), sb); }
+        else sb.append("None");
+        sb.append('\n');
+        sb.append("PUC: ");
+        if (v.hasPUC) DATE.formatTo(v.pucExpiry(), sb);
+        else sb.append("None");
+        sb.append('\n');
+        sb.append("Challan Due: ₹");
+        return CsvExporter.money(sb, v.challanAmount, PLAIN_DIGITS).append('\n').toString();
+    }
+}
@@ -0,0 +1,107 @@
+package VehicleIdentificationSystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * RecordLog - append-only journal of small binary records
+ * - Each record is framed as [length][crc32][payload]
+ * - Replay stops at the first torn or corrupt record and truncates the tail,
+ *   so a crash in the middle of an append never poisons the store
+ * - Owners fold the journal into a snapshot and then call reset()
+ */
+final class RecordLog {
+    private static final int HEADER = 8;
+    private static final int MAX_RECORD = 16 * 1024 * 1024;
+
+    private final File file;
+    private FileChannel channel;
+    private int records;
+
+    RecordLog(String path) {
+        this.file = new File(path);
+    }
+
+    /** Feeds every intact record to the sink in order and returns how many were read. */
+    synchronized int replay(Consumer<byte[]> sink) throws IOException {
+        records = 0;
+        if (!file.exists()) return 0;
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int len, sum;
+                try { len = in.readInt(); sum = in.readInt(); }
+                catch (EOFException eof) { break; }
+                if (len < 0 || len > MAX_RECORD) break;
+                byte[] payload = new byte[len];
+                try { in.readFully(payload); }
+                catch (EOFException eof) { break; }
+                crc.reset(); crc.update(payload, 0, len);
+                if ((int) crc.getValue() != sum) break;
+                sink.accept(payload);
+                good += HEADER + len;
+                records++;
+            }
+        }
+        if (good < file.length()) {
+            // torn final record: drop it so later appends start on a clean frame
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) { raf.setLength(good); }
+        }
+        return records;
+    }
+
+    synchronized void append(byte[] payload) throws IOException {
+        appendAll(List.of(payload));
+    }
+
+    /** Writes all payloads with a single channel write so a batch lands together. */
+    synchronized void appendAll(List<byte[]> payloads) throws IOException {
+        if (payloads.isEmpty()) return;
+        int total = 0;
+        for (byte[] p : payloads) total += HEADER + p.length;
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        CRC32 crc = new CRC32();
+        for (byte[] p : payloads) {
+            crc.reset(); crc.update(p, 0, p.length);
+            buf.putInt(p.length).putInt((int) crc.getValue()).put(p);
+        }
+        buf.flip();
+        FileChannel ch = channel();
+        while (buf.hasRemaining()) ch.write(buf);
+        ch.force(false);
+        records += payloads.size();
+    }
+
+    /** True when there is nothing on disk to replay. */
+    synchronized boolean isEmpty() {
+        return file.length() == 0;
+    }
+
+    /** Number of records appended since the last reset (or found by replay). */
+    synchronized int size() {
+        return records;
+    }
+
+    /** Empties the journal once its contents are folded into a snapshot. */
+    synchronized void reset() throws IOException {
+        channel().truncate(0);
+        channel.force(true);
+        records = 0;
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) { channel.close(); channel = null; }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen())
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return channel;
+    }
+}
@@ -0,0 +1,154 @@
+package VehicleIdentificationSystem;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * RegNumberAllocator - persistent registration sequence per "STATE|DISTRICT" key
+ * - Sequence n maps to series (n-1)/9999 and number (n-1)%9999+1, i.e. AA 0001 .. AA 9999, AB 0001 ..
+ * - Each key has its own AtomicLong, so districts never contend with each other;
+ *   only the journal write itself is serialized
+ * - High-water marks go to regseq.journal and are folded into regseq.dat, so a
+ *   restart resumes where it left off without scanning the vehicles
+ */
+final class RegNumberAllocator {
+    static final int PER_SERIES = 9999;
+    private static final File FILE = VehicleSystemPortal.Storage.dataFile("regseq.dat");
+    private static final int COMPACT_AFTER = 1000;
+
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock compaction = new ReentrantReadWriteLock();
+    private final RecordLog journal = new RecordLog(VehicleSystemPortal.Storage.dataFile("regseq.journal").getPath());
+
+    /** Restores saved counters; seeds them from existing registrations only on the very first run. */
+    static RegNumberAllocator load(Iterable<VehicleSystemPortal.Vehicle> existing) {
+        RegNumberAllocator a = new RegNumberAllocator();
+        boolean restored = a.readSnapshot();
+        try {
+            restored |= a.journal.replay(a::applyRecord) > 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (!restored) {
+            for (VehicleSystemPortal.Vehicle v : existing) a.seed(v.getRegNumber());
+            a.compact();
+        }
+        return a;
+    }
+
+    /** Next number that next() would hand out, without consuming it. */
+    long peek(String key) {
+        AtomicLong c = counters.get(key);
+        return (c == null ? 0 : c.get()) + 1;
+    }
+
+    long next(String key) {
+        return reserve(key, 1);
+    }
+
+    /** Reserves count consecutive sequence numbers and returns the first. */
+    long reserve(String key, int count) {
+        if (count < 1) throw new IllegalArgumentException("count must be positive");
+        AtomicLong counter = counters.computeIfAbsent(key, k -> new AtomicLong());
+        long last;
+        compaction.readLock().lock();
+        try {
+            last = counter.addAndGet(count);
+            persist(key, last);
+        } finally {
+            compaction.readLock().unlock();
+        }
+        if (journal.size() >= COMPACT_AFTER) compact();
+        return last - count + 1;
+    }
+
+    static int seriesIndex(long seq) { return (int) ((seq - 1) / PER_SERIES); }
+    static int numberInSeries(long seq) { return (int) ((seq - 1) % PER_SERIES) + 1; }
+
+    // ---- persistence ----
+    private void persist(String key, long highWater) {
+        try {
+            journal.append(encode(key, highWater));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Holding the write side means every counter value seen here is either in the snapshot or in a later journal record.
+    private void compact() {
+        compaction.writeLock().lock();
+        try {
+            if (journal.size() >= COMPACT_AFTER || !FILE.exists()) writeSnapshot();
+        } finally {
+            compaction.writeLock().unlock();
+        }
+    }
+
+    private void writeSnapshot() {
+        File tmp = new File(FILE.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(counters.size());
+            for (Map.Entry<String, AtomicLong> e : counters.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().get());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.reset();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean readSnapshot() {
+        if (!FILE.exists()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FILE)))) {
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) raise(in.readUTF(), in.readLong());
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void applyRecord(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            raise(in.readUTF(), in.readLong());
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static byte[] encode(String key, long value) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            out.writeUTF(key);
+            out.writeLong(value);
+        }
+        return bos.toByteArray();
+    }
+
+    private void raise(String key, long value) {
+        counters.computeIfAbsent(key, k -> new AtomicLong()).accumulateAndGet(value, Math::max);
+    }
+
+    // "MH 12 AB 0042" -> key MH|12 at sequence (AB * 9999 + 42)
+    private void seed(String reg) {
+        String[] p = reg.trim().split("\\s+");
+        if (p.length != 4 || p[2].length() != 2 || !p[3].matches("\\d{1,4}")) return;
+        String s = p[2].toUpperCase();
+        int hi = s.charAt(0) - 'A', lo = s.charAt(1) - 'A';
+        if (hi < 0 || hi > 25 || lo < 0 || lo > 25) return;
+        int series = hi * 26 + lo;
+        raise(p[0].toUpperCase() + "|" + p[1].toUpperCase(), (long) series * PER_SERIES + Integer.parseInt(p[3]));
+    }
+}
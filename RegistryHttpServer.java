@@ -0,0 +1,225 @@
+package VehicleIdentificationSystem;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * RegistryHttpServer - headless JSON endpoint over the shared VehicleRegistry
+ *   GET  /api/vehicles/{reg}              vehicle details
+ *   GET  /api/vehicles/{reg}/insurance    insurance status
+ *   GET  /api/vehicles/{reg}/puc          PUC status
+ *   POST /api/vehicles/{reg}/challan      pay challan, form field "amount"
+ *   POST /api/vehicles                    register; form fields owner,type,brand,model,state,district,districtCode
+ *   GET  /api/challans[?state=&districtCode=]  issued / collected / outstanding challan totals (paise)
+ * - Each exchange runs on a virtual thread when the JDK has them (21+),
+ *   otherwise on a cached platform thread pool
+ */
+public class RegistryHttpServer {
+    static final int DEFAULT_PORT = 8085;
+    private static final String BASE = "/api/vehicles";
+    private static final String CHALLANS = "/api/challans";
+
+    static {
+        // headers and body go out in separate writes; without TCP_NODELAY each response waits on a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final VehicleRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor = requestExecutor();
+
+    public RegistryHttpServer(VehicleRegistry registry, int port) throws IOException {
+        this.registry = registry;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext(BASE, this::handle);
+        server.createContext(CHALLANS, this::challanTotals);
+        server.setExecutor(executor);
+    }
+
+    public void start() { server.start(); }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    /** Headless entry: java VehicleIdentificationSystem.VehicleSystemPortal --headless [port] */
+    static void runHeadless(String[] args) throws IOException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        VehicleRegistry registry = VehicleRegistry.load();
+        if (!VehicleSystemPortal.Storage.unreadableShards().isEmpty()) System.err.print("Vehicles for these states could not be loaded and were left untouched on disk:\n" + VehicleSystemPortal.unreadableReport());
+        RegistryHttpServer http = new RegistryHttpServer(registry, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> { http.stop(); registry.save(); }, "registry-shutdown"));
+        http.start();
+        System.out.println("Vehicle registry: " + registry.size() + " vehicles, listening on http://127.0.0.1:" + http.port() + BASE);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively so the class still builds on JDK 17.
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "registry-http");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // ---------- routing ----------
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String path = ex.getRequestURI().getRawPath().substring(BASE.length());
+            String method = ex.getRequestMethod();
+            if (path.isEmpty() || path.equals("/")) {
+                if (method.equals("POST")) register(ex);
+                else send(ex, 405, error("use POST to register"));
+                return;
+            }
+            String[] parts = path.substring(1).split("/");
+            Vehicle v = registry.find(URLDecoder.decode(parts[0], StandardCharsets.UTF_8));
+            if (v == null) { send(ex, 404, error("vehicle not found")); return; }
+            String action = parts.length > 1 ? parts[1] : "";
+            switch (method + " " + action) {
+                case "GET ": send(ex, 200, vehicleJson(v)); break;
+                case "GET insurance": send(ex, 200, insuranceJson(v)); break;
+                case "GET puc": send(ex, 200, pucJson(v)); break;
+                case "POST challan": payChallan(ex, v); break;
+                default: send(ex, 404, error("unknown endpoint"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            send(ex, 500, error(String.valueOf(e)));
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void challanTotals(HttpExchange ex) throws IOException {
+        try {
+            if (!ex.getRequestMethod().equals("GET")) { send(ex, 405, error("use GET")); return; }
+            Map<String, String> f = form(ex);
+            String state = f.get("state"), dcode = f.get("districtCode");
+            ChallanLedger ledger = registry.challans();
+            ChallanLedger.Totals t = state == null ? ledger.overall() : dcode == null ? ledger.state(state) : ledger.district(state, dcode);
+            send(ex, 200, "{\"state\":" + str(state) + ",\"districtCode\":" + str(dcode) + ",\"issuedPaise\":" + t.issued()
+                    + ",\"collectedPaise\":" + t.collected() + ",\"outstandingPaise\":" + t.outstanding() + "}");
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            send(ex, 500, error(String.valueOf(e)));
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void register(HttpExchange ex) throws IOException {
+        Map<String, String> f = form(ex);
+        String owner = f.getOrDefault("owner", "").trim(), type = f.getOrDefault("type", "").trim(), state = f.getOrDefault("state", "").trim(),
+               district = f.getOrDefault("district", "").trim(), dcode = f.getOrDefault("districtCode", "").trim();
+        if (owner.isEmpty() || type.isEmpty() || district.isEmpty() || dcode.isEmpty()) throw new IllegalArgumentException("owner, type, state, district and districtCode are required");
+        if (!VehicleSystemPortal.isKnownState(state)) throw new IllegalArgumentException("unknown state");
+        if (!VehicleSystemPortal.isKnownType(type)) throw new IllegalArgumentException("unknown type; one of " + String.join(", ", VehicleSystemPortal.VEHICLE_TYPES));
+        Vehicle v = registry.register(type, f.getOrDefault("brand", "").trim(), f.getOrDefault("model", "").trim(), owner, state, district, dcode);
+        send(ex, 201, vehicleJson(v));
+    }
+
+    private void payChallan(HttpExchange ex, Vehicle v) throws IOException {
+        double amount;
+        try { amount = Double.parseDouble(form(ex).getOrDefault("amount", "")); }
+        catch (NumberFormatException e) { throw new IllegalArgumentException("amount must be a number"); }
+        double remaining = registry.payChallan(v, amount);
+        send(ex, 200, "{\"regNumber\":" + str(v.getRegNumber()) + ",\"paid\":" + amount + ",\"remaining\":" + remaining + "}");
+    }
+
+    // ---------- JSON ----------
+    private String vehicleJson(Vehicle v) {
+        return registry.read(v, () -> "{\"regNumber\":" + str(v.getRegNumber()) + ",\"owner\":" + str(v.owner) + ",\"type\":" + str(v.type())
+                    + ",\"brand\":" + str(v.brand()) + ",\"model\":" + str(v.model()) + ",\"state\":" + str(v.state())
+                    + ",\"district\":" + str(v.district()) + ",\"districtCode\":" + str(v.districtCode())
+                    + ",\"registered\":" + date(v.registrationDate()) + ",\"challanDue\":" + v.challanAmount
+                    + ",\"insurance\":" + insuranceFields(v) + ",\"puc\":" + pucFields(v) + "}");
+    }
+
+    private String insuranceJson(Vehicle v) { return registry.read(v, () -> insuranceFields(v)); }
+
+    private String pucJson(Vehicle v) { return registry.read(v, () -> pucFields(v)); }
+
+    private static String insuranceFields(Vehicle v) {
+        return "{\"hasInsurance\":" + v.hasInsurance + ",\"provider\":" + str(v.insuranceProvider()) + ",\"expiry\":" + date(v.insuranceExpiry())
+                + ",\"valid\":" + valid(v.hasInsurance, v.insuranceExpiry()) + "}";
+    }
+
+    private static String pucFields(Vehicle v) {
+        return "{\"hasPUC\":" + v.hasPUC + ",\"expiry\":" + date(v.pucExpiry()) + ",\"valid\":" + valid(v.hasPUC, v.pucExpiry()) + "}";
+    }
+
+    private static boolean valid(boolean has, LocalDate expiry) {
+        return has && expiry != null && !expiry.isBefore(LocalDate.now());
+    }
+
+    private static String date(LocalDate d) { return d == null ? "null" : "\"" + d + "\""; }
+
+    private static String error(String msg) { return "{\"error\":" + str(msg) + "}"; }
+
+    static String str(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // ---------- I/O ----------
+    private static Map<String, String> form(HttpExchange ex) throws IOException {
+        String body;
+        try (InputStream in = ex.getRequestBody()) { body = new String(in.readAllBytes(), StandardCharsets.UTF_8); }
+        String query = ex.getRequestURI().getRawQuery();
+        Map<String, String> out = new HashMap<>();
+        for (String src : new String[]{query, body}) {
+            if (src == null || src.isEmpty()) continue;
+            for (String pair : src.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq <= 0) continue;
+                out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return out;
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) { out.write(bytes); }
+    }
+}
@@ -0,0 +1,119 @@
+package VehicleIdentificationSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * RegistryStressTest - many threads registering, insuring and settling challans at once
+ * - Usage: java VehicleIdentificationSystem.RegistryStressTest [threads] [opsPerThread]
+ * - Runs against a throwaway data directory, then checks for duplicate numbers,
+ *   index consistency, lost challan updates, ledger totals, and that a reload from disk sees the same state
+ * - Exits with status 1 on any failed check
+ */
+public class RegistryStressTest {
+    private static final String[] STATES = {"Maharashtra", "Karnataka", "Delhi", "Goa", "Kerala"};
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        File dir = Files.createTempDirectory("registry-stress").toFile();
+        System.setProperty("portal.data.dir", dir.getPath());
+
+        VehicleRegistry registry = VehicleRegistry.inMemory(StorageFormatBench.sample(2_000));
+        registry.save();
+        Vehicle[] seeded = registry.snapshot();
+        Map<Vehicle, Double> startBalance = new IdentityHashMap<>();
+        for (Vehicle v : seeded) startBalance.put(v, v.challanAmount);
+        ConcurrentHashMap<Vehicle, AtomicInteger> challanOps = new ConcurrentHashMap<>();
+        AtomicInteger registered = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            done.add(pool.submit(() -> {
+                go.await();
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < ops; i++) {
+                    int op = rnd.nextInt(10);
+                    if (op < 4) {
+                        registry.register("Car", "Brand", "Model", "Owner", STATES[rnd.nextInt(STATES.length)], "District", String.format("%02d", 1 + rnd.nextInt(5)));
+                        registered.incrementAndGet();
+                    } else {
+                        Vehicle v = seeded[rnd.nextInt(seeded.length)];
+                        if (op < 7) {
+                            registry.issueInsurance(v, "Stress Mutual", LocalDate.now().plusDays(rnd.nextInt(1, 700)));
+                        } else {
+                            // pays never exceed this thread's own charges, so the balance never clamps at zero
+                            registry.addChallan(v, 100);
+                            registry.payChallan(v, 40);
+                            challanOps.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+        double secs = (System.nanoTime() - t0) / 1e9;
+
+        List<String> failures = new ArrayList<>();
+        int expectedSize = seeded.length + registered.get();
+        if (registry.size() != expectedSize) failures.add("size " + registry.size() + " != " + expectedSize);
+        Set<String> seen = new HashSet<>();
+        for (Vehicle v : registry.snapshot()) {
+            if (!seen.add(VehicleSystemPortal.canonicalReg(v.getRegNumber()))) failures.add("duplicate registration " + v.getRegNumber());
+            if (registry.find(v.getRegNumber()) != v) failures.add("index mismatch for " + v.getRegNumber());
+        }
+        for (Vehicle v : seeded) {
+            AtomicInteger n = challanOps.get(v);
+            double expected = startBalance.get(v) + (n == null ? 0 : n.get() * 60.0);
+            if (Math.abs(registry.challanDue(v) - expected) > 1e-6) failures.add("lost challan update on " + v.getRegNumber() + ": " + registry.challanDue(v) + " != " + expected);
+        }
+        Map<String, Vehicle> reloaded = new HashMap<>();
+        for (Vehicle v : VehicleSystemPortal.Storage.load()) reloaded.put(VehicleSystemPortal.canonicalReg(v.getRegNumber()), v);
+        if (reloaded.size() != expectedSize) failures.add("reload found " + reloaded.size() + " vehicles, expected " + expectedSize);
+        for (Vehicle v : registry.snapshot()) {
+            Vehicle r = reloaded.get(VehicleSystemPortal.canonicalReg(v.getRegNumber()));
+            if (r == null) continue;
+            if (Math.abs(r.challanAmount - v.challanAmount) > 1e-6 || !Objects.equals(r.insuranceExpiry(), v.insuranceExpiry()))
+                failures.add("reloaded state differs for " + v.getRegNumber());
+        }
+        ChallanLedger ledger = registry.challans();
+        long held = 0;
+        for (Vehicle v : registry.snapshot()) held += ChallanLedger.paise(v.challanAmount);
+        if (ledger.overall().outstanding() != held) failures.add("ledger outstanding " + ledger.overall().outstanding() + " != balances " + held);
+        Map<String, Long> rebuilt = ledger.balances();
+        for (Vehicle v : registry.snapshot())
+            if (rebuilt.getOrDefault(VehicleSystemPortal.canonicalReg(v.getRegNumber()), 0L) != ChallanLedger.paise(v.challanAmount))
+                failures.add("ledger balance differs for " + v.getRegNumber());
+        ChallanLedger replayed = ChallanLedger.load(List.of());
+        if (replayed.overall().collected() != ledger.overall().collected() || replayed.state("Maharashtra").outstanding() != ledger.state("Maharashtra").outstanding())
+            failures.add("ledger totals differ after replay");
+
+        System.out.printf("%d threads x %d ops in %.2f s (%,.0f ops/s), %d registrations%n", threads, ops, secs, threads * ops / secs, registered.get());
+        deleteTree(dir);
+        if (failures.isEmpty()) {
+            System.out.println("PASS");
+        } else {
+            failures.stream().limit(20).forEach(f -> System.out.println("FAIL " + f));
+            System.exit(1);
+        }
+    }
+
+    private static void deleteTree(File f) throws IOException {
+        File[] kids = f.listFiles();
+        if (kids != null) for (File k : kids) deleteTree(k);
+        Files.deleteIfExists(f.toPath());
+    }
+}
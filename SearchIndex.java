@@ -0,0 +1,172 @@
+package VehicleIdentificationSystem;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * SearchIndex - type-ahead lookup by partial registration number or owner name
+ * - Registration numbers: sorted by canonical form, so a prefix is a range scan
+ * - Owners: sorted upper-cased name tokens, each holding the list positions of its vehicles
+ * - Both are append-only (plates and owners never change after registration) and safe to query
+ *   while another thread adds vehicles
+ */
+final class SearchIndex {
+    // owner postings scanned per query at most, so a one-letter query on millions of vehicles stays fast
+    private static final int SCAN_LIMIT = 50_000;
+
+    private final List<Vehicle> vehicles;
+    private final PrefixMap<Vehicle> byReg;
+    private final PrefixMap<Postings> byOwner;
+
+    /** vehicles is the registry's list; every vehicle passed to add() must already have its index. */
+    SearchIndex(List<Vehicle> vehicles) {
+        this.vehicles = vehicles;
+        List<Map.Entry<String, Vehicle>> regs = new ArrayList<>(vehicles.size());
+        Map<String, Postings> owners = new HashMap<>();
+        for (Vehicle v : vehicles) {
+            regs.add(new AbstractMap.SimpleImmutableEntry<>(VehicleSystemPortal.canonicalReg(v.getRegNumber()), v));
+            for (String t : tokens(v.owner())) owners.computeIfAbsent(t, k -> new Postings()).add(v.index);
+        }
+        this.byReg = new PrefixMap<>(regs);
+        this.byOwner = new PrefixMap<>(new ArrayList<>(owners.entrySet()));
+    }
+
+    void add(Vehicle v) {
+        byReg.put(VehicleSystemPortal.canonicalReg(v.getRegNumber()), v);
+        for (String t : tokens(v.owner())) byOwner.computeIfAbsent(t, k -> new Postings()).add(v.index);
+    }
+
+    /**
+     * Up to limit vehicles whose registration number starts with the query (spacing and case ignored),
+     * followed by vehicles whose owner has a name token starting with each query word.
+     */
+    List<Vehicle> search(String query, int limit) {
+        List<Vehicle> out = new ArrayList<>(limit);
+        String canon = VehicleSystemPortal.canonicalReg(query);
+        if (canon.isEmpty() || limit <= 0) return out;
+        byReg.scan(canon, (key, v) -> { out.add(v); return out.size() < limit; });
+        List<String> words = tokens(query);
+        if (out.size() >= limit || words.isEmpty()) return out;
+
+        // drive the scan from the word with the fewest postings, check the others against the owner's tokens
+        String lead = null;
+        int leadCount = Integer.MAX_VALUE;
+        for (String w : words) {
+            int c = postings(w);
+            if (c < leadCount) { lead = w; leadCount = c; }
+        }
+        Set<Vehicle> seen = new HashSet<>(out);
+        int[] scanned = {0};
+        byOwner.scan(lead, (key, p) -> {
+            int n = p.size;
+            int[] ids = p.ids;
+            for (int i = 0; i < n; i++) {
+                if (++scanned[0] > SCAN_LIMIT) return false;
+                Vehicle v = vehicles.get(ids[i]);
+                if (words.size() > 1 && !matchesAll(tokens(v.owner()), words)) continue;
+                if (seen.add(v)) { out.add(v); if (out.size() >= limit) return false; }
+            }
+            return true;
+        });
+        return out;
+    }
+
+    // Postings under a token prefix, counted only up to SCAN_LIMIT.
+    private int postings(String prefix) {
+        int[] total = {0};
+        byOwner.scan(prefix, (key, p) -> (total[0] += p.size) < SCAN_LIMIT);
+        return total[0];
+    }
+
+    private static boolean matchesAll(List<String> ownerTokens, List<String> words) {
+        outer:
+        for (String w : words) {
+            for (String t : ownerTokens) if (t.startsWith(w)) continue outer;
+            return false;
+        }
+        return true;
+    }
+
+    /** Upper-cased runs of letters and digits. */
+    static List<String> tokens(String s) {
+        List<String> out = new ArrayList<>(3);
+        if (s == null) return out;
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) { out.add(s.substring(start, i).toUpperCase(Locale.ROOT)); start = -1; }
+        }
+        return out;
+    }
+
+    // Growable int list: one writer at a time, readers take size then ids without locking.
+    private static final class Postings {
+        volatile int[] ids = new int[2];
+        volatile int size;
+
+        synchronized void add(int id) {
+            int n = size;
+            if (n > 0 && ids[n - 1] == id) return;   // owner repeats a token ("Kumar Kumar")
+            if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+            ids[n] = id;
+            size = n + 1;
+        }
+    }
+
+    /**
+     * Sorted string map: the bulk-loaded keys sit in sorted arrays, keys added later in a skip-list.
+     * Building from arrays is one sort, far cheaper than a million skip-list inserts at startup.
+     */
+    private static final class PrefixMap<V> {
+        private final String[] keys;
+        private final Object[] values;
+        private final ConcurrentSkipListMap<String, V> added = new ConcurrentSkipListMap<>();
+
+        PrefixMap(List<Map.Entry<String, V>> entries) {
+            entries.sort(Map.Entry.comparingByKey());
+            keys = new String[entries.size()];
+            values = new Object[entries.size()];
+            for (int i = 0; i < keys.length; i++) { keys[i] = entries.get(i).getKey(); values[i] = entries.get(i).getValue(); }
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(String key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? (V) values[i] : added.get(key);
+        }
+
+        void put(String key, V value) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i >= 0) values[i] = value;
+            else added.put(key, value);
+        }
+
+        V computeIfAbsent(String key, Function<String, V> f) {
+            V v = get(key);
+            return v != null ? v : added.computeIfAbsent(key, f);
+        }
+
+        /** Visits entries whose key starts with prefix, in key order, until the visitor returns false. */
+        @SuppressWarnings("unchecked")
+        void scan(String prefix, BiPredicate<String, V> visitor) {
+            int i = Arrays.binarySearch(keys, prefix);
+            if (i < 0) i = -i - 1;
+            Iterator<Map.Entry<String, V>> it = added.tailMap(prefix, true).entrySet().iterator();
+            Map.Entry<String, V> next = it.hasNext() ? it.next() : null;
+            while (true) {
+                String base = i < keys.length && keys[i].startsWith(prefix) ? keys[i] : null;
+                if (next != null && !next.getKey().startsWith(prefix)) next = null;
+                if (base == null && next == null) return;
+                boolean go;
+                if (next == null || (base != null && base.compareTo(next.getKey()) < 0)) { go = visitor.test(base, (V) values[i]); i++; }
+                else { go = visitor.test(next.getKey(), next.getValue()); next = it.hasNext() ? it.next() : null; }
+                if (!go) return;
+            }
+        }
+    }
+}
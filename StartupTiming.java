@@ -0,0 +1,126 @@
+package VehicleIdentificationSystem;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.PaintEvent;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * StartupTiming - time to first paint and time to interactive, login screen and portal
+ * - Usage: java -Dportal.data.dir=DIR VehicleIdentificationSystem.StartupTiming --seed VEHICLES USER PASSWORD
+ *          java -Dportal.data.dir=DIR VehicleIdentificationSystem.StartupTiming USER PASSWORD
+ * - Seed once, then time in a fresh JVM so the run is a cold start
+ * - First paint is the first PAINT event a window receives; interactive is when the EDT has worked
+ *   through everything queued at that moment, i.e. the first point it could react to a keystroke
+ * - Signs in through the real form (fills it, presses Login, closes the welcome dialog)
+ * - Times are from JVM start; needs a display
+ */
+public class StartupTiming {
+    private static final long JVM_START_NANOS = System.nanoTime()
+            - (System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()) * 1_000_000L;
+    private static final Map<String, Long> MARKS = new LinkedHashMap<>();
+    private static final CountDownLatch LOGIN_READY = new CountDownLatch(1), PORTAL_READY = new CountDownLatch(1);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4 && args[0].equals("--seed")) { seed(Integer.parseInt(args[1]), args[2], args[3]); return; }
+        if (args.length != 2) {
+            System.err.println("usage: StartupTiming [--seed VEHICLES] USER PASSWORD");
+            System.exit(2);
+        }
+        mark("main");
+        Toolkit.getDefaultToolkit().addAWTEventListener(e -> {
+            if (e.getID() != PaintEvent.PAINT) return;
+            if (e.getSource() instanceof LoginFrame && mark("login first paint")) interactive("login interactive", LOGIN_READY);
+            else if (e.getSource() instanceof VehicleSystemPortal && mark("portal first paint")) interactive("portal interactive", PORTAL_READY);
+        }, AWTEvent.PAINT_EVENT_MASK);
+
+        SwingUtilities.invokeAndWait(LoginFrame::new);
+        VehicleSystemPortal.preload().whenComplete((r, err) -> mark(err == null ? "registry loaded (" + r.size() + " vehicles)" : "registry load failed"));
+        if (!LOGIN_READY.await(60, TimeUnit.SECONDS)) fail("login screen never painted");
+
+        SwingUtilities.invokeAndWait(() -> signIn(args[0], args[1]));
+        closeWelcome();
+        if (!PORTAL_READY.await(300, TimeUnit.SECONDS)) fail("portal never painted");
+
+        report();
+        System.exit(0);
+    }
+
+    private static void signIn(String user, String password) {
+        LoginFrame login = null;
+        for (Window w : Window.getWindows()) if (w instanceof LoginFrame && w.isShowing()) login = (LoginFrame) w;
+        if (login == null) fail("no login window");
+        JTextField tfUser = find(login, JTextField.class, c -> !(c instanceof JPasswordField));
+        JPasswordField pfPass = find(login, JPasswordField.class, c -> true);
+        JButton btnLogin = find(login, JButton.class, b -> "Login".equals(b.getText()));
+        tfUser.setText(user);
+        pfPass.setText(password);
+        mark("login submitted");
+        btnLogin.doClick();
+    }
+
+    // The welcome message is modal; close it as soon as it appears so the portal can open
+    private static void closeWelcome() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            for (Window w : Window.getWindows()) {
+                if (w instanceof JDialog && w.isShowing()) {
+                    JOptionPane pane = find((JDialog) w, JOptionPane.class, c -> true);
+                    String message = pane == null ? "" : String.valueOf(pane.getMessage());
+                    SwingUtilities.invokeLater(w::dispose);
+                    if (!message.startsWith("Welcome")) fail("login refused: " + message);
+                    mark("login accepted");
+                    return;
+                }
+            }
+            Thread.sleep(5);
+        }
+        fail("no answer from the login form");
+    }
+
+    private static void interactive(String name, CountDownLatch done) {
+        SwingUtilities.invokeLater(() -> { mark(name); done.countDown(); });
+    }
+
+    /** Records name once; returns false if it was already recorded. */
+    private static synchronized boolean mark(String name) {
+        return MARKS.putIfAbsent(name, System.nanoTime()) == null;
+    }
+
+    private static synchronized void report() {
+        Long submitted = MARKS.get("login submitted");
+        System.out.printf(Locale.ROOT, "%-36s %10s %14s%n", "event", "ms (JVM)", "ms (login)");
+        MARKS.forEach((name, at) -> System.out.printf(Locale.ROOT, "%-36s %10.1f %14s%n", name, (at - JVM_START_NANOS) / 1e6,
+                submitted == null || at < submitted ? "" : String.format(Locale.ROOT, "%.1f", (at - submitted) / 1e6)));
+    }
+
+    private static <T extends Component> T find(Container root, Class<T> type, Predicate<T> test) {
+        for (Component c : root.getComponents()) {
+            if (type.isInstance(c) && c.isShowing() && test.test(type.cast(c))) return type.cast(c);
+            if (c instanceof Container) {
+                T found = find((Container) c, type, test);
+                if (found != null) return found;
+            }
+        }
+        return null;
+    }
+
+    private static void seed(int n, String user, String password) {
+        VehicleSystemPortal.Storage.save(StorageFormatBench.sample(n));
+        boolean created = new CredentialService(UserStore.load()).register(user, password.toCharArray()).join();
+        System.out.println(n + " vehicles written to " + VehicleSystemPortal.Storage.dataFile(".").getAbsoluteFile().getParent()
+                + (created ? ", user " + user + " created" : ", user " + user + " already exists"));
+    }
+
+    private static void fail(String why) {
+        report();
+        System.err.println("FAIL " + why);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,85 @@
+package VehicleIdentificationSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * StorageFormatBench - compares default Java serialization with VehicleCodec
+ * - Usage: java VehicleIdentificationSystem.StorageFormatBench [vehicleCount]
+ * - Reports file size, best-of-5 load time, the heap the loaded list retains (used heap after full GCs, before
+ *   and after the load, with the list still reachable) and the bytes allocated while loading (n/a without
+ *   com.sun.management)
+ */
+public class StorageFormatBench {
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<Vehicle> list = sample(n);
+        File ser = File.createTempFile("vehicles", ".dat"), bin = File.createTempFile("vehicles", ".bin");
+        ser.deleteOnExit(); bin.deleteOnExit();
+        VehicleCodec.writeSerialized(list, ser);
+        VehicleCodec.writeFile(list, bin);
+
+        System.out.printf("%,d vehicles%n", n);
+        report("ObjectOutputStream", ser, () -> VehicleCodec.readSerialized(ser));
+        report("VehicleCodec (mmap)", bin, () -> VehicleCodec.readFile(bin));
+    }
+
+    interface Loader { List<Vehicle> load() throws IOException; }
+
+    private static void report(String name, File f, Loader loader) throws IOException {
+        long best = Long.MAX_VALUE, retained = 0, allocated = -1;
+        List<Vehicle> loaded = null;
+        for (int i = 0; i < 5; i++) {
+            loaded = null;
+            long before = VehicleFootprint.usedAfterGc();
+            long a0 = allocatedBytes(), t0 = System.nanoTime();
+            loaded = loader.load();
+            long t = System.nanoTime() - t0, a1 = allocatedBytes();
+            best = Math.min(best, t);
+            allocated = a0 < 0 ? -1 : a1 - a0;
+            retained = VehicleFootprint.usedAfterGc() - before;
+            Reference.reachabilityFence(loaded);
+            if (loaded.isEmpty() && f.length() > 64) throw new IllegalStateException("nothing loaded");
+        }
+        System.out.printf("%-22s file %,12d B   load %,8.1f ms   retained %,14d B   allocated %14s B%n",
+                name, f.length(), best / 1e6, retained, allocated < 0 ? "n/a" : String.format("%,d", allocated));
+    }
+
+    // bytes this thread has allocated so far, or -1 when the JVM doesn't expose the count
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        if (mx instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) mx).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    // spread over a few states so sharded storage sees several shards
+    private static final String[] STATES = {"Maharashtra", "Karnataka", "Tamil Nadu", "Delhi", "Gujarat", "Uttar Pradesh", "West Bengal", "Kerala"};
+    private static final String[] CODES = {"MH", "KA", "TN", "DL", "GJ", "UP", "WB", "KL"};
+
+    static List<Vehicle> sample(int n) {
+        String[] types = {"Car","Motorcycle","Truck","Bus","Other"};
+        String[] brands = {"Maruti","Hyundai","Tata","Mahindra","Honda","Bajaj","TVS","Ashok Leyland"};
+        List<Vehicle> list = new ArrayList<>(n);
+        LocalDate base = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < n; i++) {
+            int s = i % STATES.length, d = i / STATES.length % 40 + 1;
+            String dc = d < 10 ? "0" + d : String.valueOf(d);
+            Vehicle v = new Vehicle(types[i % types.length], brands[i % brands.length], "Model " + (i % 50),
+                    VehicleSystemPortal.formatRegNumber(CODES[s], dc, i / (STATES.length * 40) + 1), "Owner " + i, STATES[s], "District " + d, dc);
+            v.setRegistrationDate(base.plusDays(i % 1500));
+            if (i % 3 == 0) v.issueInsurance("Acme General", base.plusDays(365 + i % 900));
+            if (i % 4 == 0) v.issuePUC(base.plusDays(180 + i % 700));
+            if (i % 7 == 0) v.addChallan(500 + i % 4500);
+            list.add(v);
+        }
+        return list;
+    }
+}
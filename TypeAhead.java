@@ -0,0 +1,121 @@
+package VehicleIdentificationSystem;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * TypeAhead - suggestion dropdown under a text field
+ * - Each edit restarts a short timer; the query then runs on a background thread
+ *   and only the newest query's results are shown
+ * - Up/Down move through the list, Enter or a click picks, Escape closes
+ */
+final class TypeAhead {
+    private static final int DEBOUNCE_MILLIS = 150;
+    private static final int MAX_RESULTS = 10;
+    private static final ExecutorService QUERIES = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "type-ahead");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final JTextField field;
+    private final BiFunction<String, Integer, List<Vehicle>> search;
+    private final Consumer<Vehicle> onPick;
+    private final DefaultListModel<String> labels = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(labels);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final Timer debounce;
+    private List<Vehicle> shown = List.of();
+    private int generation;   // EDT only: bumped per query so late results from an older query are dropped
+    private boolean picking;
+
+    TypeAhead(JTextField field, BiFunction<String, Integer, List<Vehicle>> search, Consumer<Vehicle> onPick) {
+        this.field = field; this.search = search; this.onPick = onPick;
+        debounce = new Timer(DEBOUNCE_MILLIS, e -> query());
+        debounce.setRepeats(false);
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setPrototypeCellValue("XX 00 XX 0000 — XXXXXXXXXXXXXXXXXXXXXXXX");
+        list.addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent e) { int i = list.locationToIndex(e.getPoint()); if (i >= 0) pick(i); }
+        });
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { edited(); }
+            public void removeUpdate(DocumentEvent e) { edited(); }
+            public void changedUpdate(DocumentEvent e) {}
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) return;
+                int i = list.getSelectedIndex();
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN: select(Math.min(i + 1, labels.size() - 1)); e.consume(); break;
+                    case KeyEvent.VK_UP: select(Math.max(i - 1, 0)); e.consume(); break;
+                    case KeyEvent.VK_ENTER: if (i >= 0) { pick(i); e.consume(); } break;
+                    case KeyEvent.VK_ESCAPE: popup.setVisible(false); e.consume(); break;
+                    default:
+                }
+            }
+        });
+    }
+
+    private void edited() {
+        if (picking) return;
+        generation++;
+        debounce.restart();
+    }
+
+    private void query() {
+        String text = field.getText().trim();
+        int gen = ++generation;
+        if (text.isEmpty()) { popup.setVisible(false); return; }
+        CompletableFuture.supplyAsync(() -> search.apply(text, MAX_RESULTS), QUERIES)
+                .whenComplete((found, err) -> SwingUtilities.invokeLater(() -> {
+                    if (gen != generation || err != null) return;
+                    show(found);
+                }));
+    }
+
+    private void show(List<Vehicle> found) {
+        shown = found;
+        labels.clear();
+        for (Vehicle v : found) labels.addElement(v.getRegNumber() + " — " + v.owner());
+        if (found.isEmpty() || !field.isShowing()) { popup.setVisible(false); return; }
+        list.setVisibleRowCount(Math.min(found.size(), MAX_RESULTS));
+        list.clearSelection();
+        popup.pack();
+        if (!popup.isVisible()) popup.show(field, 0, field.getHeight());
+    }
+
+    private void select(int i) {
+        if (i < 0) return;
+        list.setSelectedIndex(i);
+        list.ensureIndexIsVisible(i);
+    }
+
+    private void pick(int i) {
+        Vehicle v = shown.get(i);
+        popup.setVisible(false);
+        generation++;
+        picking = true;
+        try { field.setText(v.getRegNumber()); } finally { picking = false; }
+        onPick.accept(v);
+    }
+}
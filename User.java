@@ -1,39 +1,114 @@
 package VehicleIdentificationSystem;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 public class User implements Serializable {
     private static final long serialVersionUID = 1L;
 
     String username;
-    String password;
+    String password;          // legacy plaintext, cleared once the account is migrated
+    byte[] salt;
+    byte[] passwordHash;
+    int iterations;
 
     public User(String username, String password) {
         this.username = username;
         this.password = password;
     }
 
+    public User(String username, byte[] salt, byte[] passwordHash, int iterations) {
+        this.username = username;
+        this.salt = salt;
+        this.passwordHash = passwordHash;
+        this.iterations = iterations;
+    }
+
     public String getUsername() { return username; }
     public String getPassword() { return password; }
+    public boolean isHashed() { return passwordHash != null; }
 
     // ---- Storage methods ----
-    private static final String FILE = "users.dat";
+    // users.dat is a snapshot; accounts created since then live in users.journal
+    private static final File FILE = VehicleSystemPortal.Storage.dataFile("users.dat");
+    private static final RecordLog JOURNAL = new RecordLog(VehicleSystemPortal.Storage.dataFile("users.journal").getPath());
+    private static final int COMPACT_AFTER = 1000;
 
     @SuppressWarnings("unchecked")
     public static ArrayList<User> loadUsers() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE))) {
-            return (ArrayList<User>) ois.readObject();
+        long t0 = System.nanoTime();
+        ArrayList<User> list;
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(FILE)))) {
+            list = (ArrayList<User>) ois.readObject();
         } catch (Exception e) {
-            return new ArrayList<>();
+            list = new ArrayList<>();
+        }
+        Map<String, Integer> pos = new HashMap<>();
+        for (int i = 0; i < list.size(); i++) pos.put(list.get(i).getUsername(), i);
+        final ArrayList<User> out = list;
+        try {
+            JOURNAL.replay(bytes -> {
+                User u = decode(bytes);
+                if (u == null) return;
+                Integer at = pos.get(u.getUsername());
+                if (at == null) { pos.put(u.getUsername(), out.size()); out.add(u); }
+                else out.set(at, u);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        PortalMetrics.LOAD_USERS.record(t0);
+        return out;
     }
 
+    /** Rewrites the snapshot and empties the journal. */
     public static void saveUsers(ArrayList<User> list) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE))) {
+        long t0 = System.nanoTime();
+        File tmp = new File(FILE.getPath() + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
             oos.writeObject(list);
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            JOURNAL.reset();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            PortalMetrics.SAVE_USERS.record(t0);
+        }
+    }
+
+    /** Persists a single account; returns true when the journal is due for compaction. */
+    public static boolean appendUser(User u) {
+        try {
+            JOURNAL.append(encode(u));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return true;
+        }
+        return JOURNAL.size() >= COMPACT_AFTER;
+    }
+
+    private static byte[] encode(User u) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(u);
+        }
+        return bos.toByteArray();
+    }
+
+    private static User decode(byte[] bytes) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (User) ois.readObject();
+        } catch (Exception e) {
+            return null;
         }
     }
 }
@@ -0,0 +1,48 @@
+package VehicleIdentificationSystem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * UserStore - operator accounts keyed by username
+ * - O(1) login and duplicate checks
+ * - New accounts are appended to the user journal instead of rewriting users.dat
+ */
+public class UserStore {
+    private final Map<String, User> byName = new LinkedHashMap<>();
+
+    public static UserStore load() {
+        UserStore store = new UserStore();
+        for (User u : User.loadUsers()) store.byName.put(u.getUsername(), u);
+        return store;
+    }
+
+    public synchronized User find(String username) {
+        return byName.get(username);
+    }
+
+    public synchronized boolean exists(String username) {
+        return byName.containsKey(username);
+    }
+
+    public synchronized int size() {
+        return byName.size();
+    }
+
+    /**
+     * Replaces an existing account (e.g. after a password migration) and persists it. Replacing a plaintext account
+     * rewrites users.dat, since journaling the new record would leave the old password in the snapshot.
+     */
+    public synchronized void update(User u) {
+        User old = byName.put(u.getUsername(), u);
+        if ((old != null && !old.isHashed()) || User.appendUser(u)) User.saveUsers(new ArrayList<>(byName.values()));
+    }
+
+    /** Adds and persists a new account; returns false if the username is taken. */
+    public synchronized boolean add(User u) {
+        if (byName.putIfAbsent(u.getUsername(), u) != null) return false;
+        if (User.appendUser(u)) User.saveUsers(new ArrayList<>(byName.values()));
+        return true;
+    }
+}
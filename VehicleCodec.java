@@ -0,0 +1,178 @@
+package VehicleIdentificationSystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * VehicleCodec - versioned binary record format for Vehicle
+ * - File: [magic "VHCL"][version][count] followed by records
+ * - Record: [length][registered][insuranceExpiry][pucExpiry] as epoch days (Vehicle.NO_DATE for none),
+ *   [challan] as long paise, [flags], then nine length-prefixed UTF-8 strings
+ * - Files are read through a memory-mapped FileChannel
+ * - Old ObjectOutputStream data (vehicles.dat, journal records) is still readable
+ */
+final class VehicleCodec {
+    static final int MAGIC = 0x5648434C;
+    static final short VERSION = 1;
+    private static final int FIXED = 4 + 4 + 4 + 4 + 8 + 1;
+    private static final int FILE_HEADER = 4 + 2 + 4;
+    private static final long MAP_WINDOW = 1L << 30;
+    private static final int FLAG_INSURANCE = 1, FLAG_PUC = 2;
+
+    private VehicleCodec() {}
+
+    // ---------- single records ----------
+    static byte[] toBytes(Vehicle v) {
+        byte[][] s = strings(v);
+        ByteBuffer buf = ByteBuffer.allocate(size(s));
+        write(v, s, buf);
+        return buf.array();
+    }
+
+    static Vehicle fromBytes(byte[] b) {
+        if (b.length > 1 && (b[0] & 0xFF) == 0xAC && (b[1] & 0xFF) == 0xED) return fromSerialized(b);
+        try {
+            return read(ByteBuffer.wrap(b), new byte[256]);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static byte[][] strings(Vehicle v) {
+        String[] src = { v.type(), v.brand(), v.model(), v.getRegNumber(), v.owner, v.state(), v.district(), v.districtCode(), v.insuranceProvider() };
+        byte[][] out = new byte[src.length][];
+        for (int i = 0; i < src.length; i++) {
+            byte[] b = src[i] == null ? new byte[0] : src[i].getBytes(StandardCharsets.UTF_8);
+            if (b.length > 0xFFFF) throw new IllegalArgumentException("Field too long in " + v.getRegNumber());
+            out[i] = b;
+        }
+        return out;
+    }
+
+    private static int size(byte[][] s) {
+        int n = FIXED;
+        for (byte[] b : s) n += 2 + b.length;
+        return n;
+    }
+
+    private static void write(Vehicle v, byte[][] s, ByteBuffer out) {
+        out.putInt(size(s));
+        out.putInt(v.registeredDay);
+        out.putInt(v.insuranceDay);
+        out.putInt(v.pucDay);
+        out.putLong(Math.round(v.challanAmount * 100));
+        out.put((byte) ((v.hasInsurance ? FLAG_INSURANCE : 0) | (v.hasPUC ? FLAG_PUC : 0)));
+        for (byte[] b : s) { out.putShort((short) b.length); out.put(b); }
+    }
+
+    private static Vehicle read(ByteBuffer in, byte[] scratch) {
+        int start = in.position();
+        int len = in.getInt();
+        int registered = in.getInt(), insExpiry = in.getInt(), pucExpiry = in.getInt();
+        long paise = in.getLong();
+        int flags = in.get();
+        String type = str(in, scratch), brand = str(in, scratch), model = str(in, scratch), reg = str(in, scratch),
+               owner = str(in, scratch), state = str(in, scratch), district = str(in, scratch), dcode = str(in, scratch),
+               provider = str(in, scratch);
+        if (in.position() - start != len) throw new IllegalStateException("Corrupt vehicle record at " + start);
+        Vehicle v = new Vehicle(type, brand, model, reg, owner, state, district, dcode);
+        v.registeredDay = registered;
+        v.insuranceDay = insExpiry;
+        v.pucDay = pucExpiry;
+        v.challanAmount = paise / 100.0;
+        v.hasInsurance = (flags & FLAG_INSURANCE) != 0;
+        v.hasPUC = (flags & FLAG_PUC) != 0;
+        v.setInsuranceProvider(provider);
+        return v;
+    }
+
+    private static String str(ByteBuffer in, byte[] scratch) {
+        int n = in.getShort() & 0xFFFF;
+        if (n == 0) return "";
+        byte[] b = n <= scratch.length ? scratch : new byte[n];
+        in.get(b, 0, n);
+        return new String(b, 0, n, StandardCharsets.UTF_8);
+    }
+
+    // ---------- files ----------
+    static void writeFile(List<Vehicle> list, File f) throws IOException {
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+            buf.putInt(MAGIC).putShort(VERSION).putInt(list.size());
+            for (Vehicle v : list) {
+                byte[][] s = strings(v);
+                int n = size(s);
+                if (buf.remaining() < n) { drain(ch, buf); if (buf.capacity() < n) buf = ByteBuffer.allocate(n); }
+                write(v, s, buf);
+            }
+            drain(ch, buf);
+            ch.force(true);
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    /** Reads a whole file through read-only mappings of up to 1 GiB each. */
+    static ArrayList<Vehicle> readFile(File f) throws IOException {
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < FILE_HEADER) throw new IOException("Truncated vehicle file " + f);
+            MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER);
+            if (head.getInt() != MAGIC) throw new IOException("Not a vehicle file: " + f);
+            short version = head.getShort();
+            if (version != VERSION) throw new IOException("Unsupported vehicle file version " + version);
+            int count = head.getInt();
+            ArrayList<Vehicle> list = new ArrayList<>(count);
+            byte[] scratch = new byte[256];
+            long pos = FILE_HEADER;
+            while (list.size() < count) {
+                MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, size - pos));
+                // parse every record that lies entirely inside this window, then remap from the next one
+                while (list.size() < count && window.remaining() >= 4) {
+                    int len = window.getInt(window.position());
+                    if (len < FIXED || len > window.remaining()) break;
+                    list.add(read(window, scratch));
+                }
+                if (window.position() == 0) throw new IOException("Corrupt vehicle file " + f + " at " + pos);
+                pos += window.position();
+            }
+            return list;
+        }
+    }
+
+    // ---------- legacy serialization ----------
+    private static Vehicle fromSerialized(byte[] b) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(b))) {
+            return (Vehicle) ois.readObject();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static ArrayList<Vehicle> readSerialized(File f) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16))) {
+            return (ArrayList<Vehicle>) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    static void writeSerialized(List<Vehicle> list, File f) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16))) {
+            oos.writeObject(new ArrayList<>(list));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package VehicleIdentificationSystem;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * VehicleFootprint - retained heap per vehicle, compact Vehicle against the old field-per-string layout
+ * - Usage: java -Xmx4g VehicleIdentificationSystem.VehicleFootprint [count] [compact|legacy|both]
+ * - Vehicles are built the way a load from disk builds them: every decoded string and date is its own object
+ * - Heap is measured after full GCs, with the holding array already allocated, so only the vehicles count
+ */
+public class VehicleFootprint {
+    private static final String[] TYPES = {"Car","Motorcycle","Truck","Bus","Other"};
+    private static final String[] BRANDS = {"Maruti","Hyundai","Tata","Mahindra","Honda","Bajaj","TVS","Ashok Leyland"};
+    private static final String[] STATES = {"Maharashtra", "Karnataka", "Tamil Nadu", "Delhi", "Gujarat", "Uttar Pradesh", "West Bengal", "Kerala"};
+    private static final String[] CODES = {"MH", "KA", "TN", "DL", "GJ", "UP", "WB", "KL"};
+    private static final LocalDate BASE = LocalDate.of(2020, 1, 1);
+
+    /** The Vehicle layout before dictionary encoding, kept here only for comparison. */
+    static final class LegacyVehicle {
+        String type, brand, model, regNumber, owner, state, district, districtCode;
+        LocalDate registrationDate;
+        boolean hasInsurance = false; String insuranceProvider = ""; LocalDate insuranceExpiry = null;
+        boolean hasPUC = false; LocalDate pucExpiry = null;
+        double challanAmount = 0.0;
+        transient int index = -1;
+        transient String rendered;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String which = args.length > 1 ? args[1] : "both";
+        System.out.printf(Locale.ROOT, "%,d vehicles, max heap %,d MB%n", n, Runtime.getRuntime().maxMemory() >> 20);
+        if (!which.equals("legacy")) measure("compact", n, false);
+        if (!which.equals("compact")) measure("legacy", n, true);
+    }
+
+    private static void measure(String name, int n, boolean legacy) {
+        Object[] held = new Object[n];
+        long before = usedAfterGc();
+        try {
+            for (int i = 0; i < n; i++) held[i] = legacy ? legacy(i) : compact(i);
+        } catch (OutOfMemoryError e) {
+            System.out.printf(Locale.ROOT, "%-8s out of memory; run with a larger -Xmx%n", name);
+            return;
+        }
+        long used = usedAfterGc() - before;
+        System.out.printf(Locale.ROOT, "%-8s %,10.1f MB  %6.1f bytes/vehicle%n", name, used / 1048576.0, (double) used / n);
+        Reference.reachabilityFence(held);
+    }
+
+    // Field values as StorageFormatBench.sample makes them, each string copied as a decoder would
+    private static Vehicle compact(int i) {
+        int s = i % STATES.length, d = i / STATES.length % 40 + 1;
+        String dc = d < 10 ? "0" + d : String.valueOf(d);
+        Vehicle v = new Vehicle(copy(TYPES[i % TYPES.length]), copy(BRANDS[i % BRANDS.length]), "Model " + (i % 50),
+                VehicleSystemPortal.formatRegNumber(CODES[s], dc, i / (STATES.length * 40) + 1), "Owner " + i, copy(STATES[s]), "District " + d, dc);
+        v.setRegistrationDate(BASE.plusDays(i % 1500));
+        if (i % 3 == 0) v.issueInsurance(copy("Acme General"), BASE.plusDays(365 + i % 900));
+        if (i % 4 == 0) v.issuePUC(BASE.plusDays(180 + i % 700));
+        if (i % 7 == 0) v.addChallan(500 + i % 4500);
+        return v;
+    }
+
+    private static LegacyVehicle legacy(int i) {
+        int s = i % STATES.length, d = i / STATES.length % 40 + 1;
+        String dc = d < 10 ? "0" + d : String.valueOf(d);
+        LegacyVehicle v = new LegacyVehicle();
+        v.type = copy(TYPES[i % TYPES.length]); v.brand = copy(BRANDS[i % BRANDS.length]); v.model = "Model " + (i % 50);
+        v.regNumber = VehicleSystemPortal.formatRegNumber(CODES[s], dc, i / (STATES.length * 40) + 1); v.owner = "Owner " + i;
+        v.state = copy(STATES[s]); v.district = "District " + d; v.districtCode = dc;
+        v.registrationDate = BASE.plusDays(i % 1500);
+        if (i % 3 == 0) { v.hasInsurance = true; v.insuranceProvider = copy("Acme General"); v.insuranceExpiry = BASE.plusDays(365 + i % 900); }
+        if (i % 4 == 0) { v.hasPUC = true; v.pucExpiry = BASE.plusDays(180 + i % 700); }
+        if (i % 7 == 0) v.challanAmount += 500 + i % 4500;
+        return v;
+    }
+
+    private static String copy(String s) { return new String(s.toCharArray()); }
+
+    static long usedAfterGc() {
+        MemoryMXBean mem = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, mem.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,233 @@
+package VehicleIdentificationSystem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Storage;
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * VehicleRegistry - the in-memory vehicle registry shared by the Swing portal and the HTTP service
+ * - Owns the vehicle list, the registration index, the number allocator, the expiry, search and bitmap
+ *   indexes and the challan ledger
+ * - Safe for many concurrent sessions: lookups are lock-free (ConcurrentHashMap, AppendOnlyList),
+ *   and a vehicle's fields are only touched under one of STRIPES locks chosen by its registration number
+ * - Every mutation is journaled through Storage before the call returns
+ */
+public class VehicleRegistry {
+    private static final int STRIPES = 64;
+
+    private final AppendOnlyList<Vehicle> vehicles;
+    private final ConcurrentHashMap<String, Vehicle> regIndex;
+    private final RegNumberAllocator allocator;
+    private final ExpiryIndex expiries;
+    private final SearchIndex search;
+    private final BitmapIndex bitmaps;
+    private final ChallanLedger challans;
+    private final Object[] stripes = new Object[STRIPES];
+    // journal compaction (a full snapshot) runs inline unless the caller hands it to a background executor
+    private final Runnable compaction = this::compactNow;
+    private volatile Consumer<Runnable> snapshots = Runnable::run;
+
+    private VehicleRegistry(List<Vehicle> loaded) {
+        this.vehicles = new AppendOnlyList<>(loaded);
+        this.regIndex = new ConcurrentHashMap<>(Math.max(16, loaded.size() * 4 / 3 + 1));
+        for (int i = 0; i < vehicles.size(); i++) {
+            Vehicle v = vehicles.get(i);
+            v.index = i;
+            regIndex.put(VehicleSystemPortal.canonicalReg(v.getRegNumber()), v);
+        }
+        this.allocator = RegNumberAllocator.load(vehicles);
+        this.expiries = new ExpiryIndex(vehicles);
+        this.search = new SearchIndex(vehicles);
+        this.bitmaps = new BitmapIndex(vehicles, expiries);
+        this.challans = ChallanLedger.load(vehicles);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    public static VehicleRegistry load() {
+        return new VehicleRegistry(Storage.load());
+    }
+
+    /** Registry over vehicles that did not come from Storage (benchmarks, load tests). Mutations are still journaled. */
+    static VehicleRegistry inMemory(List<Vehicle> vehicles) {
+        return new VehicleRegistry(vehicles);
+    }
+
+    // ---- lookups ----
+    public Vehicle find(String reg) {
+        if (reg == null) return null;
+        long t0 = System.nanoTime();
+        Vehicle v = regIndex.get(VehicleSystemPortal.canonicalReg(reg));
+        PortalMetrics.FIND.record(t0);
+        return v;
+    }
+
+    /** Type-ahead matches: registration-number prefixes first, then owner-name matches. */
+    public List<Vehicle> search(String query, int limit) {
+        return search.search(query, limit);
+    }
+
+    public int size() { return vehicles.size(); }
+
+    // ---- filtering (bitmap intersection, see BitmapIndex) ----
+    int count(BitmapIndex.Query q) { return bitmaps.count(q); }
+
+    /** List positions of the matching vehicles, ascending. */
+    int[] filter(BitmapIndex.Query q) { return bitmaps.matches(q); }
+
+    Map<String, Integer> countBy(BitmapIndex.Query q, BitmapIndex.Field by) { return bitmaps.countBy(q, by); }
+
+    Map<String, Map<String, Integer>> countBy(BitmapIndex.Query q, BitmapIndex.Field outer, BitmapIndex.Field inner) {
+        return bitmaps.countBy(q, outer, inner);
+    }
+
+    /** The live backing list; safe to read from any thread, indices below size() never change. */
+    List<Vehicle> vehicles() { return vehicles; }
+
+    public Vehicle[] snapshot() { return vehicles.toArray(new Vehicle[0]); }
+
+    ExpiryIndex expiries() { return expiries; }
+
+    RegNumberAllocator allocator() { return allocator; }
+
+    ChallanLedger challans() { return challans; }
+
+    /** Routes journal compaction through scheduler, e.g. PortalCommands::saveLater to coalesce and background it. */
+    void snapshotVia(Consumer<Runnable> scheduler) { this.snapshots = scheduler; }
+
+    /** Runs a read of v's mutable fields under its stripe lock, so it never sees a half-applied update. */
+    public <T> T read(Vehicle v, Supplier<T> reader) {
+        synchronized (lockFor(v)) { return reader.get(); }
+    }
+
+    // ---- registration ----
+    public String previewRegNumber(String stateFull, String districtCode) {
+        String st = VehicleSystemPortal.extractStateCode(stateFull), dc = VehicleSystemPortal.formatDistrictCode(districtCode);
+        return VehicleSystemPortal.formatRegNumber(st, dc, allocator.peek(st + "|" + dc));
+    }
+
+    public String allocateRegNumber(String stateFull, String districtCode) {
+        long t0 = System.nanoTime();
+        String st = VehicleSystemPortal.extractStateCode(stateFull), dc = VehicleSystemPortal.formatDistrictCode(districtCode);
+        String reg = VehicleSystemPortal.formatRegNumber(st, dc, allocator.next(st + "|" + dc));
+        PortalMetrics.REG_NUMBER.record(t0);
+        return reg;
+    }
+
+    public Vehicle register(String type, String brand, String model, String owner, String stateFull, String district, String districtCode) {
+        String reg = allocateRegNumber(stateFull, districtCode);
+        Vehicle v = new Vehicle(type, brand, model, reg, owner, stateFull, district, districtCode);
+        boolean compact;
+        synchronized (lockFor(v)) {
+            v.index = vehicles.append(v);
+            regIndex.put(VehicleSystemPortal.canonicalReg(reg), v);
+            expiries.add(v);
+            search.add(v);
+            bitmaps.add(v);
+            compact = Storage.append(v);
+        }
+        if (compact) snapshots.accept(compaction);
+        PortalMetrics.count("vehicles.registered");
+        return v;
+    }
+
+    /**
+     * Adds already-numbered vehicles (bulk import) with a single persistence write. A shard the batch fills is
+     * snapshotted on the calling thread, so the batch is on disk when this returns.
+     */
+    public void addAll(List<Vehicle> batch) {
+        if (batch.isEmpty()) return;
+        int first = vehicles.appendAll(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            Vehicle v = batch.get(i);
+            v.index = first + i;
+            regIndex.put(VehicleSystemPortal.canonicalReg(v.getRegNumber()), v);
+            expiries.add(v);
+            search.add(v);
+            bitmaps.add(v);
+        }
+        challans.opened(batch);
+        if (Storage.appendAll(batch) && !Storage.compactIfDue(vehicles)) throw new UncheckedIOException(new IOException("Imported vehicles could not be written to disk"));
+    }
+
+    // ---- mutations ----
+    public void issueInsurance(Vehicle v, String provider, LocalDate expiry) {
+        boolean compact;
+        synchronized (lockFor(v)) {
+            LocalDate old = ExpiryIndex.expiry(v, ExpiryIndex.Kind.INSURANCE);
+            v.issueInsurance(provider, expiry);
+            expiries.changed(v, ExpiryIndex.Kind.INSURANCE, old);
+            bitmaps.changed(v);
+            compact = Storage.append(v);
+        }
+        if (compact) snapshots.accept(compaction);
+    }
+
+    public void issuePUC(Vehicle v, LocalDate expiry) {
+        boolean compact;
+        synchronized (lockFor(v)) {
+            LocalDate old = ExpiryIndex.expiry(v, ExpiryIndex.Kind.PUC);
+            v.issuePUC(expiry);
+            expiries.changed(v, ExpiryIndex.Kind.PUC, old);
+            bitmaps.changed(v);
+            compact = Storage.append(v);
+        }
+        if (compact) snapshots.accept(compaction);
+    }
+
+    public double challanDue(Vehicle v) {
+        synchronized (lockFor(v)) { return v.challanAmount; }
+    }
+
+    public void addChallan(Vehicle v, double amount) {
+        checkAmount(amount);
+        boolean compact;
+        synchronized (lockFor(v)) {
+            long before = ChallanLedger.paise(v.challanAmount);
+            v.addChallan(amount);
+            challans.issued(v, ChallanLedger.paise(v.challanAmount) - before);
+            compact = Storage.append(v);
+        }
+        if (compact) snapshots.accept(compaction);
+    }
+
+    /** Applies a payment and returns the remaining balance. */
+    public double payChallan(Vehicle v, double amount) {
+        checkAmount(amount);
+        boolean compact;
+        double left;
+        synchronized (lockFor(v)) {
+            long before = ChallanLedger.paise(v.challanAmount);
+            v.payChallan(amount);
+            left = v.challanAmount;
+            challans.paid(v, before - ChallanLedger.paise(left));
+            compact = Storage.append(v);
+        }
+        if (compact) snapshots.accept(compaction);
+        return left;
+    }
+
+    // NaN fails the comparisons too, so only finite amounts in (0, MAX_RUPEES] reach the ledger
+    private static void checkAmount(double amount) {
+        if (!(amount > 0 && amount <= ChallanLedger.MAX_RUPEES)) throw new IllegalArgumentException("Amount must be a positive number up to " + (long) ChallanLedger.MAX_RUPEES + ": " + amount);
+    }
+
+    private void compactNow() {
+        Storage.compactIfDue(vehicles);
+    }
+
+    public void save() {
+        Storage.flush(vehicles);
+    }
+
+    private Object lockFor(Vehicle v) {
+        return stripes[(v.regHash() & 0x7fffffff) % STRIPES];
+    }
+}
@@ -5,110 +5,494 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * VehicleSystemPortal - single-file Swing application
  * - Sidebar navigation, central cards, right RC preview
  * - Registration generates reg number only after full details provided
  * - Insurance and PUC modules working by registration number lookup
- * - Vehicles persisted to vehicles.dat
+ * - Vehicles persisted per state: vehicles-MH.bin (binary snapshot) plus vehicles-MH.journal (per-mutation records)
+ * - Registry writes and lookups go through PortalCommands, so the EDT never waits on the disk
+ * - RC preview prints to PDF/PNG; View All prints certificates for every row it shows (RcCertificatePrinter)
  */
 public class VehicleSystemPortal extends JFrame {
     // ---------------- Model ----------------
+    // Repeated text (type, brand, model, state, district, district code, insurer) is kept as Vocabulary ids, a standard
+    // registration number ("MH 12 AB 0042") as one packed long and dates as epoch days, so a vehicle costs one object
+    // plus its owner's name. Everything is read through the accessors; VehicleFootprint compares heap sizes.
     static class Vehicle implements Serializable {
         private static final long serialVersionUID = 2L;
-        String type, brand, model, regNumber, owner, state, district, districtCode;
-        LocalDate registrationDate;
+        // vehicles.dat and old journal records keep the original one-field-per-string serialized form
+        private static final ObjectStreamField[] serialPersistentFields = {
+                new ObjectStreamField("type", String.class), new ObjectStreamField("brand", String.class),
+                new ObjectStreamField("model", String.class), new ObjectStreamField("regNumber", String.class),
+                new ObjectStreamField("owner", String.class), new ObjectStreamField("state", String.class),
+                new ObjectStreamField("district", String.class), new ObjectStreamField("districtCode", String.class),
+                new ObjectStreamField("registrationDate", LocalDate.class),
+                new ObjectStreamField("hasInsurance", boolean.class), new ObjectStreamField("insuranceProvider", String.class),
+                new ObjectStreamField("insuranceExpiry", LocalDate.class),
+                new ObjectStreamField("hasPUC", boolean.class), new ObjectStreamField("pucExpiry", LocalDate.class),
+                new ObjectStreamField("challanAmount", double.class)
+        };
+        static final Vocabulary TYPES = new Vocabulary(), BRANDS = new Vocabulary(), MODELS = new Vocabulary(), STATES = new Vocabulary(),
+                DISTRICTS = new Vocabulary(), DISTRICT_CODES = new Vocabulary(), PROVIDERS = new Vocabulary();
+        static final int NO_DATE = Integer.MIN_VALUE;
+        private static final long NO_PLATE = -1;
+
+        private int type, brand, model, state, district, districtCode;
+        private long plate = NO_PLATE;
+        private String regText;   // only for numbers that do not fit the packed form
+        String owner;
+        int registeredDay;
         // Insurance
-        boolean hasInsurance = false; String insuranceProvider = ""; LocalDate insuranceExpiry = null;
+        boolean hasInsurance = false; private int insuranceProvider = PROVIDERS.id(""); int insuranceDay = NO_DATE;
         // PUC
-        boolean hasPUC = false; LocalDate pucExpiry = null;
+        boolean hasPUC = false; int pucDay = NO_DATE;
         // Challan
         double challanAmount = 0.0;
+        // Position in the loaded vehicle list (not persisted)
+        transient int index = -1;
+        // Cached detailedInfo() text, cleared by every mutator
+        transient String rendered;
 
         public Vehicle(String type, String brand, String model, String regNumber, String owner,
                        String state, String district, String districtCode) {
-            this.type = type; this.brand = brand; this.model = model; this.regNumber = regNumber; this.owner = owner;
-            this.state = state; this.district = district; this.districtCode = districtCode;
-            this.registrationDate = LocalDate.now();
+            this.type = TYPES.id(type); this.brand = BRANDS.id(brand); this.model = MODELS.id(model); setRegNumber(regNumber); this.owner = owner;
+            this.state = STATES.id(state); this.district = DISTRICTS.id(district); this.districtCode = DISTRICT_CODES.id(districtCode);
+            this.registeredDay = (int) LocalDate.now().toEpochDay();
         }
 
         public String getRegNumber() {
-            return regNumber;
+            return plate == NO_PLATE ? regText : unpackPlate(plate);
         }
         public String owner() {
             return owner;
         }
+        public String type() { return TYPES.text(type); }
+        public String brand() { return BRANDS.text(brand); }
+        public String model() { return MODELS.text(model); }
+        public String state() { return STATES.text(state); }
+        public String district() { return DISTRICTS.text(district); }
+        public String districtCode() { return DISTRICT_CODES.text(districtCode); }
+        public String insuranceProvider() { return PROVIDERS.text(insuranceProvider); }
+        public LocalDate registrationDate() { return date(registeredDay); }
+        public LocalDate insuranceExpiry() { return date(insuranceDay); }
+        public LocalDate pucExpiry() { return date(pucDay); }
+        // vocabulary ids, for BitmapIndex
+        int typeId() { return type; }
+        int stateId() { return state; }
+        int districtCodeId() { return districtCode; }
+        // registry lock striping key; hashes the packed plate instead of building the registration String
+        int regHash() { return plate == NO_PLATE ? Objects.hashCode(regText) : Long.hashCode(plate); }
+
+        void setRegNumber(String reg) {
+            plate = packPlate(reg);
+            regText = plate == NO_PLATE ? reg : null;
+            rendered = null;
+        }
+        void setRegistrationDate(LocalDate d) { registeredDay = day(d); rendered = null; }
+        void setInsuranceProvider(String provider) { insuranceProvider = PROVIDERS.id(provider); rendered = null; }
 
         public void issueInsurance(String provider, LocalDate expiry) {
             this.hasInsurance = true;
-            this.insuranceProvider = provider;
-            this.insuranceExpiry = expiry;
+            this.insuranceProvider = PROVIDERS.id(provider);
+            this.insuranceDay = day(expiry);
+            this.rendered = null;
         }
         public void issuePUC(LocalDate expiry) {
             this.hasPUC = true;
-            this.pucExpiry = expiry;
+            this.pucDay = day(expiry);
+            this.rendered = null;
         }
         public void addChallan(double amt) {
             this.challanAmount += amt;
+            this.rendered = null;
         }
         public void payChallan(double amt) {
             this.challanAmount -= amt;
             if (this.challanAmount < 0)
                 this.challanAmount = 0;
+            this.rendered = null;
         }
 
+        /** RC text; rendered once and reused until the next mutation. */
         public String detailedInfo() {
-            DateTimeFormatter f = DateTimeFormatter.ofPattern("dd-MMM-yyyy");
-            StringBuilder sb = new StringBuilder();
-            sb.append("Registration: ").append(regNumber).append("\n");
-            sb.append("Owner: ").append(owner).append("\n");
-            sb.append("Type: ").append(type).append("\n");
-            sb.append("Brand: ").append(brand).append("\n");
-            sb.append("Model: ").append(model).append("\n");
-            sb.append("State: ").append(state).append("\n");
-            sb.append("District: ").append(district).append(" ("+districtCode+")\n");
-            sb.append("Registered On: ").append(registrationDate.format(f)).append("\n");
-            sb.append("Insurance: ").append(hasInsurance ? (insuranceProvider+" until "+insuranceExpiry.format(f)) : "None").append("\n");
-            sb.append("PUC: ").append(hasPUC ? (pucExpiry.format(f)) : "None").append("\n");
-            sb.append("Challan Due: ₹").append(String.format("%.2f", challanAmount)).append("\n");
-            return sb.toString();
+            String s = rendered;
+            if (s == null) rendered = s = RcRenderer.render(this);
+            return s;
+        }
+
+        static int day(LocalDate d) { return d == null ? NO_DATE : (int) d.toEpochDay(); }
+        static LocalDate date(int day) { return day == NO_DATE ? null : LocalDate.ofEpochDay(day); }
+
+        // "MH 12 AB 0042" -> 5 bits per letter, 7 for the district, 14 for the number; anything else stays text
+        static long packPlate(String reg) {
+            if (reg == null || reg.length() != 13 || reg.charAt(2) != ' ' || reg.charAt(5) != ' ' || reg.charAt(8) != ' ') return NO_PLATE;
+            int s1 = letter(reg.charAt(0)), s2 = letter(reg.charAt(1)), d1 = digit(reg.charAt(3)), d2 = digit(reg.charAt(4)),
+                x1 = letter(reg.charAt(6)), x2 = letter(reg.charAt(7));
+            int n = 0;
+            for (int i = 9; i < 13; i++) { int d = digit(reg.charAt(i)); if (d < 0) return NO_PLATE; n = n * 10 + d; }
+            if ((s1 | s2 | d1 | d2 | x1 | x2) < 0) return NO_PLATE;
+            return ((long) s1 << 36) | ((long) s2 << 31) | ((long) (d1 * 10 + d2) << 24) | ((long) x1 << 19) | ((long) x2 << 14) | n;
+        }
+
+        static String unpackPlate(long p) {
+            int n = (int) (p & 0x3FFF), d = (int) (p >>> 24 & 0x7F);
+            char[] c = {
+                    (char) ('A' + (p >>> 36 & 31)), (char) ('A' + (p >>> 31 & 31)), ' ', (char) ('0' + d / 10), (char) ('0' + d % 10), ' ',
+                    (char) ('A' + (p >>> 19 & 31)), (char) ('A' + (p >>> 14 & 31)), ' ',
+                    (char) ('0' + n / 1000), (char) ('0' + n / 100 % 10), (char) ('0' + n / 10 % 10), (char) ('0' + n % 10)
+            };
+            return new String(c);
+        }
+
+        private static int letter(char c) { return c >= 'A' && c <= 'Z' ? c - 'A' : -1; }
+        private static int digit(char c) { return c >= '0' && c <= '9' ? c - '0' : -1; }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField f = out.putFields();
+            f.put("type", type()); f.put("brand", brand()); f.put("model", model()); f.put("regNumber", getRegNumber());
+            f.put("owner", owner); f.put("state", state()); f.put("district", district()); f.put("districtCode", districtCode());
+            f.put("registrationDate", registrationDate());
+            f.put("hasInsurance", hasInsurance); f.put("insuranceProvider", insuranceProvider()); f.put("insuranceExpiry", insuranceExpiry());
+            f.put("hasPUC", hasPUC); f.put("pucExpiry", pucExpiry());
+            f.put("challanAmount", challanAmount);
+            out.writeFields();
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField f = in.readFields();
+            type = TYPES.id((String) f.get("type", null)); brand = BRANDS.id((String) f.get("brand", null));
+            model = MODELS.id((String) f.get("model", null)); setRegNumber((String) f.get("regNumber", null));
+            owner = (String) f.get("owner", null); state = STATES.id((String) f.get("state", null));
+            district = DISTRICTS.id((String) f.get("district", null)); districtCode = DISTRICT_CODES.id((String) f.get("districtCode", null));
+            registeredDay = day((LocalDate) f.get("registrationDate", null));
+            hasInsurance = f.get("hasInsurance", false); insuranceProvider = PROVIDERS.id((String) f.get("insuranceProvider", ""));
+            insuranceDay = day((LocalDate) f.get("insuranceExpiry", null));
+            hasPUC = f.get("hasPUC", false); pucDay = day((LocalDate) f.get("pucExpiry", null));
+            challanAmount = f.get("challanAmount", 0.0);
+            index = -1;
         }
     }
 
     // ---------------- Storage ----------------
+    // One shard per state code (extractStateCode; unknown states share XX): vehicles-MH.bin holds a VehicleCodec
+    // snapshot, every mutation appends the vehicle's new state to vehicles-MH.journal, and a shard's journal is
+    // folded into its own snapshot periodically. Shards load in parallel; -Dportal.states=MH,GA loads only those.
+    // The old single vehicles.bin/vehicles.journal (and vehicles.dat before it) is split into shards once.
     static class Storage {
-        private static final String FILE = "vehicles.dat";
-        @SuppressWarnings("unchecked")
+        private static final String PREFIX = "vehicles-";
+        private static final String FILE = "vehicles.bin";
+        private static final String LEGACY_FILE = "vehicles.dat";
+        private static final String LEGACY_JOURNAL = "vehicles.journal";
+        private static final int COMPACT_AFTER = 1000;
+        // a snapshot that failed to read is renamed with this suffix and its shard stays unloaded until it is restored
+        private static final String UNREADABLE = ".unreadable";
+        private static final Map<String, Shard> SHARDS = new ConcurrentHashMap<>();
+        private static final Map<String, String> UNREADABLE_SHARDS = new ConcurrentSkipListMap<>();
+
+        /** Resolves a data file against -Dportal.data.dir (default: the working directory). */
+        static File dataFile(String name) { return new File(System.getProperty("portal.data.dir", "."), name); }
+
+        static String shardOf(Vehicle v) { return extractStateCode(v.state()); }
+
+        /** Shards the last load() could not read, by state code; their vehicles are not in the list and they are never snapshotted. */
+        static Map<String, String> unreadableShards() { return Collections.unmodifiableMap(UNREADABLE_SHARDS); }
+
+        /** Loads every shard on disk (or only -Dportal.states), in parallel, ordered by state code. */
         public static ArrayList<Vehicle> load() {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(FILE))) {
-                return (ArrayList<Vehicle>) ois.readObject();
-            } catch (Exception e) {
-                return new ArrayList<>();
+            long t0 = System.nanoTime();
+            UNREADABLE_SHARDS.clear();
+            // a failed split keeps the legacy store for the next start; running on half-written shards would lose data
+            try { migrate(); }
+            catch (IOException e) { throw new UncheckedIOException("Could not split the vehicle store into shards", e); }
+            Set<String> wanted = wantedStates();
+            List<Shard> shards = new ArrayList<>();
+            for (String code : shardsOnDisk()) {
+                Shard s = shard(code);
+                if (wanted == null || wanted.contains(code)) shards.add(s);
+                else s.loaded = false;   // left on disk untouched: appends still go to its journal, it is never snapshotted
+            }
+            List<ArrayList<Vehicle>> parts = shards.parallelStream().map(Shard::load).collect(Collectors.toList());
+            int total = 0;
+            for (List<Vehicle> p : parts) total += p.size();
+            ArrayList<Vehicle> out = new ArrayList<>(total);
+            for (List<Vehicle> p : parts) out.addAll(p);
+            for (int i = 0; i < out.size(); i++) out.get(i).index = i;
+            PortalMetrics.STORAGE_LOAD.record(t0);
+            return out;
+        }
+
+        /** Writes a full snapshot of every loaded shard in list and empties their journals; false if any shard failed. */
+        public static boolean save(List<Vehicle> list) {
+            long t0 = System.nanoTime();
+            int grouped = list.size();
+            Map<String, List<Vehicle>> byShard = group(list, grouped, code -> shard(code).loaded);
+            boolean ok = byShard.entrySet().parallelStream().map(e -> shard(e.getKey()).write(e.getValue(), list, grouped)).reduce(true, Boolean::logicalAnd);
+            PortalMetrics.STORAGE_SAVE.record(t0);
+            return ok;
+        }
+
+        /** Snapshots only the shards with journaled changes (or none on disk yet); all is the whole registry. */
+        public static void flush(List<Vehicle> all) {
+            long t0 = System.nanoTime();
+            Set<String> dirty = new HashSet<>();
+            for (Shard s : SHARDS.values()) if (s.loaded && (s.snapshotNeeded || s.journal.size() > 0)) dirty.add(s.code);
+            int grouped = all.size();
+            Map<String, List<Vehicle>> byShard = group(all, grouped, code -> dirty.contains(code) || (shard(code).loaded && !shard(code).file().exists()));
+            for (String code : dirty) byShard.putIfAbsent(code, new ArrayList<>());
+            byShard.entrySet().parallelStream().forEach(e -> shard(e.getKey()).write(e.getValue(), all, grouped));
+            PortalMetrics.STORAGE_SAVE.record(t0);
+        }
+
+        /**
+         * Snapshots the shards whose journal is full (or whose journal write failed); safe to call from many threads.
+         * Returns false if a shard holding vehicles its journal is missing could not be snapshotted.
+         */
+        public static boolean compactIfDue(List<Vehicle> all) {
+            List<Shard> due = new ArrayList<>();
+            for (Shard s : SHARDS.values()) if (s.loaded && s.due()) due.add(s);
+            if (due.isEmpty()) return true;
+            Set<String> codes = new HashSet<>();
+            for (Shard s : due) codes.add(s.code);
+            int grouped = all.size();
+            Map<String, List<Vehicle>> byShard = group(all, grouped, codes::contains);
+            boolean ok = true;
+            for (Shard s : due) {
+                s.compaction.writeLock().lock();
+                try { if (s.due() && !s.write(byShard.getOrDefault(s.code, new ArrayList<>()), all, grouped) && s.snapshotNeeded) ok = false; }
+                finally { s.compaction.writeLock().unlock(); }
+            }
+            return ok;
+        }
+
+        /**
+         * Records one vehicle's current state in its shard's journal. Callers hold that vehicle's lock so records for
+         * the same vehicle reach the journal in mutation order. Returns true when compactIfDue should run.
+         */
+        public static boolean append(Vehicle v) {
+            Shard s = shard(shardOf(v));
+            byte[] record = VehicleCodec.toBytes(v);
+            s.compaction.readLock().lock();
+            try { s.journal.append(record); }
+            catch (IOException e) { e.printStackTrace(); s.snapshotNeeded = true; }
+            finally { s.compaction.readLock().unlock(); }
+            return s.loaded && s.due();
+        }
+
+        /** Journals a batch with one write per shard, even past COMPACT_AFTER. Returns true when compactIfDue should run. */
+        public static boolean appendAll(List<Vehicle> batch) {
+            boolean compact = false;
+            for (Map.Entry<String, List<Vehicle>> e : group(batch, batch.size(), null).entrySet()) {
+                Shard s = shard(e.getKey());
+                List<Vehicle> part = e.getValue();
+                List<byte[]> records = new ArrayList<>(part.size());
+                for (Vehicle v : part) records.add(VehicleCodec.toBytes(v));
+                s.compaction.readLock().lock();
+                try { s.journal.appendAll(records); }
+                catch (IOException ex) { ex.printStackTrace(); s.snapshotNeeded = true; }
+                finally { s.compaction.readLock().unlock(); }
+                compact |= s.loaded && s.due();
+            }
+            return compact;
+        }
+
+        private static Shard shard(String code) { return SHARDS.computeIfAbsent(code, Shard::new); }
+
+        // Vehicles per shard code among the first n of list, in list order; keep == null keeps every shard
+        private static Map<String, List<Vehicle>> group(List<Vehicle> list, int n, Predicate<String> keep) {
+            Map<String, List<Vehicle>> out = new TreeMap<>();
+            Set<String> skipped = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                Vehicle v = list.get(i);
+                String code = shardOf(v);
+                List<Vehicle> part = out.get(code);
+                if (part == null) {
+                    if (skipped.contains(code)) continue;
+                    if (keep != null && !keep.test(code)) { skipped.add(code); continue; }
+                    out.put(code, part = new ArrayList<>());
+                }
+                part.add(v);
             }
+            return out;
         }
-        public static void save(ArrayList<Vehicle> list) {
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILE))) { oos.writeObject(list); }
-            catch (IOException e) { e.printStackTrace(); }
+
+        private static Set<String> wantedStates() {
+            String p = System.getProperty("portal.states");
+            if (p == null || p.isBlank()) return null;
+            Set<String> out = new HashSet<>();
+            for (String code : p.split(",")) if (!code.isBlank()) out.add(code.trim().toUpperCase(Locale.ROOT));
+            return out;
+        }
+
+        private static SortedSet<String> shardsOnDisk() {
+            SortedSet<String> out = new TreeSet<>();
+            String[] names = dataFile(".").list();
+            if (names == null) return out;
+            for (String n : names) {
+                if (!n.startsWith(PREFIX)) continue;
+                if (n.endsWith(UNREADABLE)) n = n.substring(0, n.length() - UNREADABLE.length());
+                String code = n.endsWith(".bin") ? n.substring(PREFIX.length(), n.length() - 4)
+                        : n.endsWith(".journal") ? n.substring(PREFIX.length(), n.length() - 8) : null;
+                if (code != null && !code.isEmpty()) out.add(code);
+            }
+            return out;
+        }
+
+        /**
+         * One-time split of the single-file store into shards; the originals are kept with a .migrated suffix.
+         * Nothing is moved until every shard is written, and the journal is moved before the snapshot, so a restart
+         * at any point splits again from the same snapshot and journal.
+         */
+        private static void migrate() throws IOException {
+            File legacy = dataFile(LEGACY_FILE), bin = dataFile(FILE), oldLog = dataFile(LEGACY_JOURNAL), movedLog = dataFile(LEGACY_JOURNAL + ".migrated");
+            if (!bin.exists() && !legacy.exists() && !oldLog.exists()) return;
+            ArrayList<Vehicle> list = bin.exists() ? VehicleCodec.readFile(bin)
+                    : legacy.exists() ? VehicleCodec.readSerialized(legacy) : new ArrayList<>();
+            Map<String, Integer> pos = new HashMap<>();
+            for (int i = 0; i < list.size(); i++) pos.put(journalKey(list.get(i)), i);
+            // a journal already moved belongs to the snapshot still waiting to be moved
+            File log = oldLog.exists() ? oldLog : movedLog;
+            new RecordLog(log.getPath()).replay(bytes -> {
+                Vehicle v = VehicleCodec.fromBytes(bytes);
+                if (v == null) return;
+                Integer at = pos.get(journalKey(v));
+                if (at == null) { pos.put(journalKey(v), list.size()); list.add(v); }
+                else list.set(at, v);
+            });
+            if (!save(list)) throw new IOException("Some shards could not be written; " + LEGACY_FILE + "/" + FILE + " kept for the next start");
+            // moving the sources away commits the split; until then a restart just splits again
+            if (oldLog.exists()) Files.move(oldLog.toPath(), movedLog.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (legacy.exists()) Files.move(legacy.toPath(), dataFile(LEGACY_FILE + ".migrated").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (bin.exists()) Files.move(bin.toPath(), dataFile(FILE + ".migrated").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private static String journalKey(Vehicle v) { return canonicalReg(v.getRegNumber()); }
+
+        /** One state's snapshot and journal. */
+        private static final class Shard {
+            final String code;
+            final RecordLog journal;
+            // appends share the read side; a snapshot takes the write side so no record lands between snapshot and reset
+            final ReentrantReadWriteLock compaction = new ReentrantReadWriteLock();
+            volatile boolean snapshotNeeded;
+            volatile boolean loaded = true;
+
+            Shard(String code) {
+                this.code = code;
+                this.journal = new RecordLog(dataFile(PREFIX + code + ".journal").getPath());
+            }
+
+            File file() { return dataFile(PREFIX + code + ".bin"); }
+
+            boolean due() { return snapshotNeeded || journal.size() >= COMPACT_AFTER; }
+
+            /**
+             * Snapshot plus journal. A shard that cannot be read is left unloaded (never snapshotted, appends still
+             * journaled) instead of being treated as empty, which the next snapshot would write over the real file.
+             */
+            ArrayList<Vehicle> load() {
+                File aside = dataFile(PREFIX + code + ".bin" + UNREADABLE);
+                if (aside.exists()) return unreadable(aside.getName() + " has not been restored");
+                ArrayList<Vehicle> list;
+                try { list = file().exists() ? VehicleCodec.readFile(file()) : new ArrayList<>(); }
+                catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    try { Files.move(file().toPath(), aside.toPath()); }
+                    catch (IOException moveFailed) { moveFailed.printStackTrace(); }
+                    return unreadable(file().getName() + " could not be read (" + e + "); kept as " + aside.getName());
+                }
+                if (journal.isEmpty()) { loaded = true; return list; }
+                Map<String, Integer> pos = new HashMap<>();
+                for (int i = 0; i < list.size(); i++) pos.put(journalKey(list.get(i)), i);
+                final ArrayList<Vehicle> out = list;
+                try {
+                    journal.replay(bytes -> {
+                        Vehicle v = VehicleCodec.fromBytes(bytes);
+                        if (v == null) return;
+                        Integer at = pos.get(journalKey(v));
+                        if (at == null) { pos.put(journalKey(v), out.size()); out.add(v); }
+                        else out.set(at, v);
+                    });
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    return unreadable(PREFIX + code + ".journal could not be read (" + e + ")");
+                }
+                loaded = true;
+                return out;
+            }
+
+            private ArrayList<Vehicle> unreadable(String why) {
+                loaded = false;
+                UNREADABLE_SHARDS.put(code, why);
+                return new ArrayList<>();
+            }
+
+            /**
+             * Snapshot of this shard's vehicles, then an empty journal. members were grouped from the first grouped
+             * vehicles of all; anything appended to all since then is picked up under the lock, since its journal
+             * record may already be in the journal this snapshot is about to reset. Returns false if nothing was replaced.
+             */
+            boolean write(List<Vehicle> members, List<Vehicle> all, int grouped) {
+                compaction.writeLock().lock();
+                try {
+                    for (int i = grouped, n = all.size(); i < n; i++) if (code.equals(shardOf(all.get(i)))) members.add(all.get(i));
+                    File tmp = dataFile(PREFIX + code + ".bin.tmp");
+                    try { VehicleCodec.writeFile(members, tmp); }
+                    catch (IOException e) { e.printStackTrace(); return false; }
+                    try {
+                        Files.move(tmp.toPath(), file().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) { e.printStackTrace(); return false; }
+                    loaded = true;
+                    // the snapshot is in place; a journal left unreset only replays states the snapshot already has
+                    try { journal.reset(); snapshotNeeded = false; }
+                    catch (IOException e) { e.printStackTrace(); }
+                    return true;
+                } finally { compaction.writeLock().unlock(); }
+            }
         }
     }
 
     // ---------------- App state ----------------
-    private final ArrayList<Vehicle> vehicles = Storage.load();
-    private final Map<String,Integer> seriesTracker = new HashMap<>();
-    private final Map<String,Integer> numberTracker = new HashMap<>();
+    // started while the login form is up, so the registry is usually in memory by the time an operator signs in
+    private static CompletableFuture<VehicleRegistry> preloaded;
+    private final VehicleRegistry registry;
+    private final List<Vehicle> vehicles;
+    private final VehicleTableModel allModel;
+    private final ExpiryIndex expiryIndex;
+    // registry writes and lookups run here, never on the EDT
+    private final PortalCommands commands = new PortalCommands();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> { Thread t = new Thread(r, "renewal-sweep"); t.setDaemon(true); return t; });
+    private static final int RENEWAL_WINDOW_DAYS = 15;
 
     // UI
     private final CardLayout centerCards = new CardLayout();
     private final JPanel pnlCenter = new JPanel(centerCards);
+    // center cards not built yet; each is built the first time it is shown
+    private final Map<String, Supplier<JPanel>> unbuiltCards = new HashMap<>();
     private final JPanel pnlRight = new JPanel(new BorderLayout());
 
     // Register form fields
     private final JTextField tfOwner = new JTextField();
-    private final JComboBox<String> cbVehicleType = new JComboBox<>(new String[]{"Car","Motorcycle","Truck","Bus","Other"});
+    private final JComboBox<String> cbVehicleType = new JComboBox<>(VEHICLE_TYPES);
     private final JTextField tfBrand = new JTextField();
     private final JTextField tfModel = new JTextField();
     private final JComboBox<String> cbState = new JComboBox<>();
@@ -119,9 +503,14 @@ public class VehicleSystemPortal extends JFrame {
     // Feature lookup
     private final JTextField tfLookupReg = new JTextField(20);
 
+    // Header renewal counts, refreshed by the scheduled sweep
+    private final JLabel lblRenewals = new JLabel(" ", SwingConstants.CENTER);
+
     // Right summary
     private final JTextArea taSummary = new JTextArea();
 
+    static final String[] VEHICLE_TYPES = {"Car","Motorcycle","Truck","Bus","Other"};
+
     // States list
     private static final String[] STATES = {
             "Andhra Pradesh","Arunachal Pradesh","Assam","Bihar","Chhattisgarh","Goa","Gujarat","Haryana","Himachal Pradesh","Jharkhand",
@@ -136,30 +525,67 @@ public class VehicleSystemPortal extends JFrame {
 
     private final String currentUser;
     public VehicleSystemPortal(String username) {
+        this(username, preload().join());
+    }
+
+    VehicleSystemPortal(String username, VehicleRegistry registry) {
         this.currentUser = username;
+        this.registry = registry;
+        this.vehicles = registry.vehicles();
+        this.allModel = new VehicleTableModel(vehicles);
+        this.expiryIndex = registry.expiries();
         setTitle("Vehicle Portal");
         setSize(1150,720);
         setLocationRelativeTo(null);
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() { @Override public void windowClosing(WindowEvent e) { exitPortal(); } });
         setLayout(new BorderLayout());
+        registry.snapshotVia(commands::saveLater);
 
         add(topHeader(), BorderLayout.NORTH);
         add(leftMenu(), BorderLayout.WEST);
 
-        pnlCenter.add(registerPanel(), "REGISTER");
-        pnlCenter.add(featuresPanel(), "FEATURES");
-        pnlCenter.add(insurancePanel(), "INSURANCE");
-        pnlCenter.add(pucPanel(), "PUC");
-        pnlCenter.add(viewAllPanel(), "VIEWALL");
+        unbuiltCards.put("REGISTER", this::registerPanel);
+        unbuiltCards.put("FEATURES", this::featuresPanel);
+        unbuiltCards.put("INSURANCE", this::insurancePanel);
+        unbuiltCards.put("PUC", this::pucPanel);
+        unbuiltCards.put("VIEWALL", this::viewAllPanel);
+        unbuiltCards.put("RENEWALS", this::renewalsPanel);
         add(pnlCenter, BorderLayout.CENTER);
 
         pnlRight.setPreferredSize(new Dimension(340,0));
         pnlRight.setBorder(new EmptyBorder(18,18,18,18));
         add(pnlRight, BorderLayout.EAST);
-        refreshSummary(null);
 
-        centerCards.show(pnlCenter, "REGISTER");
+        // building the register card shows the placeholder summary; the portal opens on the RC preview
+        showCard("REGISTER");
+        refreshSummary(null);
+        sweeper.scheduleAtFixedRate(this::sweepRenewals, 0, 15, TimeUnit.MINUTES);
         setVisible(true);
+        if (!Storage.unreadableShards().isEmpty()) JOptionPane.showMessageDialog(this, "Vehicles for these states could not be loaded and were left untouched on disk:\n\n" + unreadableReport() + "\nRegistrations for them are still journaled.", "Storage problem", JOptionPane.WARNING_MESSAGE);
+    }
+
+    /** Loads the registry on a background thread; later calls return the same load. */
+    static synchronized CompletableFuture<VehicleRegistry> preload() {
+        if (preloaded == null) preloaded = CompletableFuture.supplyAsync(VehicleRegistry::load, r -> { Thread t = new Thread(r, "registry-preload"); t.setDaemon(true); t.start(); });
+        return preloaded;
+    }
+
+    /** Opens the portal once the registry is loaded; completes on the EDT with the shown frame. */
+    static CompletableFuture<VehicleSystemPortal> open(String username) {
+        CompletableFuture<VehicleSystemPortal> shown = new CompletableFuture<>();
+        preload().whenComplete((r, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null) { shown.completeExceptionally(err); return; }
+            try { shown.complete(new VehicleSystemPortal(username, r)); }
+            catch (RuntimeException e) { shown.completeExceptionally(e); }
+        }));
+        return shown;
+    }
+
+    private void showCard(String name) {
+        Supplier<JPanel> build = unbuiltCards.remove(name);
+        if (build != null) pnlCenter.add(build.get(), name);
+        centerCards.show(pnlCenter, name);
     }
 
     // ---------- UI builders ----------
@@ -167,6 +593,7 @@ public class VehicleSystemPortal extends JFrame {
         JPanel p = new JPanel(new BorderLayout()); p.setBackground(brandColor);
         JLabel title = new JLabel("VEHICLE PORTAL", SwingConstants.LEFT); title.setForeground(Color.WHITE); title.setFont(headerFont); title.setBorder(new EmptyBorder(12,16,12,12)); p.add(title, BorderLayout.WEST);
         JLabel sub = new JLabel("Register vehicles — manage Insurance / PUC / Challan", SwingConstants.RIGHT); sub.setForeground(Color.WHITE); sub.setBorder(new EmptyBorder(8,8,8,16)); p.add(sub, BorderLayout.EAST);
+        lblRenewals.setForeground(new Color(255,235,160)); p.add(lblRenewals, BorderLayout.CENTER);
         return p;
     }
 
@@ -185,12 +612,14 @@ public class VehicleSystemPortal extends JFrame {
         }
 
         JLabel menuTitle = new JLabel("Menu"); menuTitle.setFont(new Font("SansSerif", Font.BOLD, 18)); v.add(menuTitle); v.add(Box.createVerticalStrut(8));
-        v.add(navButton("Register Vehicle", e -> centerCards.show(pnlCenter, "REGISTER"))); v.add(Box.createVerticalStrut(8));
-        v.add(navButton("Search / Features", e -> centerCards.show(pnlCenter, "FEATURES"))); v.add(Box.createVerticalStrut(8));
-        v.add(navButton("Insurance", e -> centerCards.show(pnlCenter, "INSURANCE"))); v.add(Box.createVerticalStrut(8));
-        v.add(navButton("Pollution (PUC)", e -> centerCards.show(pnlCenter, "PUC"))); v.add(Box.createVerticalStrut(8));
-        v.add(navButton("View All Registered", e -> { centerCards.show(pnlCenter, "VIEWALL"); loadAllToSummary(); })); v.add(Box.createVerticalStrut(8));
-        v.add(navButton("Export CSV", e -> exportCSV())); v.add(Box.createVerticalGlue()); v.add(navButton("Exit", e -> { Storage.save(vehicles); System.exit(0); }));
+        v.add(navButton("Register Vehicle", e -> showCard("REGISTER"))); v.add(Box.createVerticalStrut(8));
+        v.add(navButton("Search / Features", e -> showCard("FEATURES"))); v.add(Box.createVerticalStrut(8));
+        v.add(navButton("Insurance", e -> showCard("INSURANCE"))); v.add(Box.createVerticalStrut(8));
+        v.add(navButton("Pollution (PUC)", e -> showCard("PUC"))); v.add(Box.createVerticalStrut(8));
+        v.add(navButton("Renewals Due", e -> showCard("RENEWALS"))); v.add(Box.createVerticalStrut(8));
+        v.add(navButton("View All Registered", e -> { showCard("VIEWALL"); loadAllToSummary(); })); v.add(Box.createVerticalStrut(8));
+        v.add(navButton("Export CSV", e -> exportCSV())); v.add(Box.createVerticalStrut(8));
+        v.add(navButton("Import CSV", e -> importCSV())); v.add(Box.createVerticalGlue()); v.add(navButton("Exit", e -> exitPortal()));
         return v;
     }
 
@@ -219,48 +648,221 @@ public class VehicleSystemPortal extends JFrame {
         g.gridx=0; g.gridy=row; form.add(new JLabel("District (enter):"), g); g.gridx=1; g.gridy=row++; form.add(tfDistrict, g);
         g.gridx=0; g.gridy=row; form.add(new JLabel("District Code (e.g. 01):"), g); g.gridx=1; g.gridy=row++; form.add(tfDistrictCode, g);
         JPanel btns = new JPanel(new FlowLayout(FlowLayout.LEFT,10,0)); JButton btnGen = new JButton("Preview Reg No"); JButton btnRegister = new JButton("Register Vehicle");
-        btnGen.addActionListener(e -> { String st = (String)cbState.getSelectedItem(); String di = tfDistrict.getText().trim(); if (st==null || di.isEmpty()) { JOptionPane.showMessageDialog(this, "Select state and enter district to preview"); return; } String reg = generateRegNumber(st, di, tfDistrictCode.getText().trim()); lblGeneratedReg.setText(reg); refreshSummary(null); });
-        btnRegister.addActionListener(e -> { String owner = tfOwner.getText().trim(); String type = (String) cbVehicleType.getSelectedItem(); String brand = tfBrand.getText().trim(); String model = tfModel.getText().trim(); String state = (String)cbState.getSelectedItem(); String district = tfDistrict.getText().trim(); String dcode = tfDistrictCode.getText().trim(); String reg = lblGeneratedReg.getText(); if (owner.isEmpty() || type==null || state==null || district.isEmpty() || dcode.isEmpty()) { JOptionPane.showMessageDialog(this, "Please fill mandatory fields and preview registration number before registering."); return; } if (reg==null || reg.equals("—")) { reg = generateRegNumber(state, district, dcode); } Vehicle v = new Vehicle(type, brand, model, reg, owner, state, district, dcode); vehicles.add(v); Storage.save(vehicles); JOptionPane.showMessageDialog(this, "Registered successfully!\nRegistration No: " + reg); clearRegistrationForm(); refreshSummary(v); });
+        btnGen.addActionListener(e -> { String st = (String)cbState.getSelectedItem(); String di = tfDistrict.getText().trim(); if (st==null || di.isEmpty()) { JOptionPane.showMessageDialog(this, "Select state and enter district to preview"); return; } String reg = previewRegNumber(st, tfDistrictCode.getText().trim()); lblGeneratedReg.setText(reg); refreshSummary(null); });
+        btnRegister.addActionListener(e -> { String owner = tfOwner.getText().trim(); String type = (String) cbVehicleType.getSelectedItem(); String brand = tfBrand.getText().trim(); String model = tfModel.getText().trim(); String state = (String)cbState.getSelectedItem(); String district = tfDistrict.getText().trim(); String dcode = tfDistrictCode.getText().trim(); if (owner.isEmpty() || type==null || state==null || district.isEmpty() || dcode.isEmpty()) { JOptionPane.showMessageDialog(this, "Please fill mandatory fields and preview registration number before registering."); return; } btnRegister.setEnabled(false); commands.run(() -> registry.register(type, brand, model, owner, state, district, dcode), (v, err) -> { btnRegister.setEnabled(true); if (err != null) { failed(err); return; } allModel.vehicleAdded(v.index); String reg = v.getRegNumber(); JOptionPane.showMessageDialog(this, "Registered successfully!\nRegistration No: " + reg); clearRegistrationForm(); refreshSummary(v); }); });
         btns.add(btnGen); btns.add(btnRegister); g.gridx=1; g.gridy=row++; form.add(btns, g);
         outer.add(form, BorderLayout.CENTER); refreshRightPlaceholder(); return outer;
     }
 
     private JPanel featuresPanel() {
         JPanel outer = new JPanel(new BorderLayout()); outer.setBorder(new EmptyBorder(18,18,18,18)); JLabel h = new JLabel("Lookup by Registration Number — Actions"); h.setFont(new Font("SansSerif", Font.BOLD, 16)); outer.add(h, BorderLayout.NORTH);
-        JPanel mid = new JPanel(new BorderLayout()); JPanel search = new JPanel(new FlowLayout(FlowLayout.LEFT,8,8)); tfLookupReg.setPreferredSize(new Dimension(420,30)); JButton btnFind = new JButton("Find"); JButton btnShowIns = new JButton("Show Insurance"); JButton btnShowPUC = new JButton("Show PUC"); JButton btnChallan = new JButton("Challan"); btnFind.addActionListener(e -> doFind()); btnShowIns.addActionListener(e -> showInsurance()); btnShowPUC.addActionListener(e -> showPUC()); btnChallan.addActionListener(e -> doChallanPayment()); search.add(new JLabel("Registration No:")); search.add(tfLookupReg); search.add(btnFind); search.add(btnShowIns); search.add(btnShowPUC); search.add(btnChallan); mid.add(search, BorderLayout.NORTH); JTextArea ta = new JTextArea(); ta.setEditable(false); JScrollPane jsp = new JScrollPane(ta); mid.add(jsp, BorderLayout.CENTER); outer.add(mid, BorderLayout.CENTER); return outer; }
+        JPanel mid = new JPanel(new BorderLayout()); JPanel search = new JPanel(new FlowLayout(FlowLayout.LEFT,8,8)); tfLookupReg.setPreferredSize(new Dimension(420,30)); JButton btnFind = new JButton("Find"); JButton btnShowIns = new JButton("Show Insurance"); JButton btnShowPUC = new JButton("Show PUC"); JButton btnChallan = new JButton("Challan"); btnFind.addActionListener(e -> doFind()); btnShowIns.addActionListener(e -> showInsurance()); btnShowPUC.addActionListener(e -> showPUC()); btnChallan.addActionListener(e -> doChallanPayment()); search.add(new JLabel("Registration No / Owner:")); search.add(tfLookupReg); new TypeAhead(tfLookupReg, registry::search, this::refreshSummary); search.add(btnFind); search.add(btnShowIns); search.add(btnShowPUC); search.add(btnChallan); mid.add(search, BorderLayout.NORTH); JTextArea ta = new JTextArea(); ta.setEditable(false); JScrollPane jsp = new JScrollPane(ta); mid.add(jsp, BorderLayout.CENTER); outer.add(mid, BorderLayout.CENTER); return outer; }
+
+    private JPanel insurancePanel() { JPanel p = new JPanel(new GridBagLayout()); p.setBorder(new EmptyBorder(18,18,18,18)); GridBagConstraints c = new GridBagConstraints(); c.insets = new Insets(8,8,8,8); c.fill = GridBagConstraints.HORIZONTAL; JTextField tfReg = new JTextField(18); JTextField tfProvider = new JTextField(16); JTextField tfExpiry = new JTextField(12); c.gridx=0; c.gridy=0; p.add(new JLabel("Registration No:"), c); c.gridx=1; p.add(tfReg, c); c.gridx=0; c.gridy=1; p.add(new JLabel("Insurance Provider:"), c); c.gridx=1; p.add(tfProvider, c); c.gridx=0; c.gridy=2; p.add(new JLabel("Expiry (YYYY-MM-DD):"), c); c.gridx=1; p.add(tfExpiry, c); JButton btnIssue = new JButton("Issue Insurance"); JLabel msg = new JLabel(" "); msg.setForeground(new Color(10,90,10)); c.gridx=1; c.gridy=3; p.add(btnIssue, c); c.gridx=1; c.gridy=4; p.add(msg, c); btnIssue.addActionListener(e -> { String reg = tfReg.getText().trim(); if (reg.isEmpty()) { msg.setText("Enter registration number"); return; } LocalDate d; try { d = LocalDate.parse(tfExpiry.getText().trim()); } catch (Exception ex) { msg.setText("Invalid date format"); return; } String provider = tfProvider.getText().trim(); msg.setText("Issuing…"); commands.run(() -> { Vehicle v = findVehicleByReg(reg); if (v != null) registry.issueInsurance(v, provider, d); return v; }, (v, err) -> { if (err != null) { msg.setText(err.getMessage()); return; } if (v==null) { msg.setText("Vehicle not found"); return; } allModel.vehicleChanged(v.index); msg.setText("Insurance issued"); refreshSummary(v); }); }); return p; }
+
+    private JPanel pucPanel() { JPanel p = new JPanel(new GridBagLayout()); p.setBorder(new EmptyBorder(18,18,18,18)); GridBagConstraints c = new GridBagConstraints(); c.insets = new Insets(8,8,8,8); c.fill = GridBagConstraints.HORIZONTAL; JTextField tfReg = new JTextField(18); JTextField tfExpiry = new JTextField(12); JLabel msg = new JLabel(" "); msg.setForeground(new Color(10,90,10)); c.gridx=0; c.gridy=0; p.add(new JLabel("Registration No:"), c); c.gridx=1; p.add(tfReg, c); c.gridx=0; c.gridy=1; p.add(new JLabel("PUC Expiry (YYYY-MM-DD):"), c); c.gridx=1; p.add(tfExpiry, c); JButton btn = new JButton("Issue PUC"); c.gridx=1; c.gridy=2; p.add(btn, c); c.gridx=1; c.gridy=3; p.add(msg, c); btn.addActionListener(e -> { String reg = tfReg.getText().trim(); LocalDate d; try { d = LocalDate.parse(tfExpiry.getText().trim()); } catch(Exception ex) { msg.setText("Invalid date"); return; } msg.setText("Issuing…"); commands.run(() -> { Vehicle v = findVehicleByReg(reg); if (v != null) registry.issuePUC(v, d); return v; }, (v, err) -> { if (err != null) { msg.setText(err.getMessage()); return; } if (v==null) { msg.setText("Vehicle not found"); return; } allModel.vehicleChanged(v.index); msg.setText("PUC issued"); refreshSummary(v); }); }); return p; }
+
+    private JPanel viewAllPanel() {
+        JPanel p = new JPanel(new BorderLayout()); p.setBorder(new EmptyBorder(12,12,12,12));
+        JLabel h = new JLabel("All Registered Vehicles"); h.setFont(new Font("SansSerif", Font.BOLD, 16));
+        JPanel top = new JPanel(new BorderLayout()); top.add(h, BorderLayout.NORTH); top.add(filterBar(), BorderLayout.CENTER); p.add(top, BorderLayout.NORTH);
+        JTable table = new JTable(allModel); table.setRowSorter(allModel.sorter()); table.setFillsViewportHeight(true); table.setAutoCreateColumnsFromModel(false);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(e -> { int r = table.getSelectedRow(); if (!e.getValueIsAdjusting() && r >= 0) refreshSummary(allModel.vehicleAt(table.convertRowIndexToModel(r))); });
+        p.add(new JScrollPane(table), BorderLayout.CENTER);
+        return p;
+    }
 
-    private JPanel insurancePanel() { JPanel p = new JPanel(new GridBagLayout()); p.setBorder(new EmptyBorder(18,18,18,18)); GridBagConstraints c = new GridBagConstraints(); c.insets = new Insets(8,8,8,8); c.fill = GridBagConstraints.HORIZONTAL; JTextField tfReg = new JTextField(18); JTextField tfProvider = new JTextField(16); JTextField tfExpiry = new JTextField(12); c.gridx=0; c.gridy=0; p.add(new JLabel("Registration No:"), c); c.gridx=1; p.add(tfReg, c); c.gridx=0; c.gridy=1; p.add(new JLabel("Insurance Provider:"), c); c.gridx=1; p.add(tfProvider, c); c.gridx=0; c.gridy=2; p.add(new JLabel("Expiry (YYYY-MM-DD):"), c); c.gridx=1; p.add(tfExpiry, c); JButton btnIssue = new JButton("Issue Insurance"); JLabel msg = new JLabel(" "); msg.setForeground(new Color(10,90,10)); c.gridx=1; c.gridy=3; p.add(btnIssue, c); c.gridx=1; c.gridy=4; p.add(msg, c); btnIssue.addActionListener(e -> { String reg = tfReg.getText().trim(); if (reg.isEmpty()) { msg.setText("Enter registration number"); return; } Vehicle v = findVehicleByReg(reg); if (v==null) { msg.setText("Vehicle not found"); return; } try { LocalDate d = LocalDate.parse(tfExpiry.getText().trim()); v.issueInsurance(tfProvider.getText().trim(), d); Storage.save(vehicles); msg.setText("Insurance issued"); refreshSummary(v); } catch (Exception ex) { msg.setText("Invalid date format"); } }); return p; }
+    private static final String ANY = "Any";
+    private static final String[] VALIDITY = {ANY, "Issued", "Not issued", "Valid", "Not valid"};
+    private static final String[] GROUPS = {"—", "State", "Type", "District code", "Insured", "PUC"};
+
+    // Filter and group-by for View All; evaluated on the bitmap index off the EDT, the table then shows only the matches.
+    private JPanel filterBar() {
+        JComboBox<String> cbSt = new JComboBox<>(withAny(STATES)), cbTy = new JComboBox<>(withAny(VEHICLE_TYPES)), cbIns = new JComboBox<>(VALIDITY), cbPuc = new JComboBox<>(VALIDITY);
+        JComboBox<String> cbBy = new JComboBox<>(GROUPS), cbThen = new JComboBox<>(GROUPS); JTextField tfDc = new JTextField(4);
+        JButton btnApply = new JButton("Apply"), btnClear = new JButton("Clear"), btnPrint = new JButton("Print RCs…"); JLabel result = new JLabel(" ");
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT,6,4)), actions = new JPanel(new FlowLayout(FlowLayout.LEFT,6,4));
+        filters.add(new JLabel("State:")); filters.add(cbSt); filters.add(new JLabel("Type:")); filters.add(cbTy); filters.add(new JLabel("District code:")); filters.add(tfDc);
+        filters.add(new JLabel("Insurance:")); filters.add(cbIns); filters.add(new JLabel("PUC:")); filters.add(cbPuc);
+        actions.add(new JLabel("Group by:")); actions.add(cbBy); actions.add(new JLabel("then by:")); actions.add(cbThen); actions.add(btnApply); actions.add(btnClear); actions.add(btnPrint); actions.add(result);
+        JPanel bar = new JPanel(new GridLayout(2, 1)); bar.add(filters); bar.add(actions);
+        btnApply.addActionListener(e -> {
+            BitmapIndex.Query q = new BitmapIndex.Query();
+            if (cbSt.getSelectedIndex() > 0) q.where(BitmapIndex.Field.STATE, (String) cbSt.getSelectedItem());
+            if (cbTy.getSelectedIndex() > 0) q.where(BitmapIndex.Field.TYPE, (String) cbTy.getSelectedItem());
+            String dc = tfDc.getText().trim(); if (!dc.isEmpty()) { try { q.where(BitmapIndex.Field.DISTRICT_CODE, formatDistrictCode(dc)); } catch (IllegalArgumentException ex) { result.setText("District code is two digits or two letters"); return; } }
+            validity(q, BitmapIndex.Field.INSURED, ExpiryIndex.Kind.INSURANCE, cbIns.getSelectedIndex()); validity(q, BitmapIndex.Field.PUC, ExpiryIndex.Kind.PUC, cbPuc.getSelectedIndex());
+            BitmapIndex.Field by = groupField(cbBy.getSelectedIndex()), then = groupField(cbThen.getSelectedIndex());
+            btnApply.setEnabled(false); result.setText("Filtering…");
+            commands.run(() -> { long t0 = System.nanoTime(); int[] rows = q.isEmpty() ? null : registry.filter(q); Object groups = by == null ? null : then == null || then == by ? registry.countBy(q, by) : registry.countBy(q, by, then); return new Object[]{rows, groups, (System.nanoTime() - t0) / 1e6}; }, (r, err) -> {
+                btnApply.setEnabled(true); if (err != null) { result.setText(err.getMessage()); return; }
+                int[] rows = (int[]) r[0]; allModel.setFilter(rows); int total = registry.size();
+                result.setText(String.format(Locale.ROOT, "%,d of %,d vehicles · %.1f ms", rows == null ? total : rows.length, total, (Double) r[2]));
+                if (r[1] != null) showGroups((String) cbBy.getSelectedItem() + (then == null || then == by ? "" : " / " + cbThen.getSelectedItem()), (Map<?, ?>) r[1]);
+            });
+        });
+        btnPrint.addActionListener(e -> printRcs(btnPrint, result));
+        btnClear.addActionListener(e -> { cbSt.setSelectedIndex(0); cbTy.setSelectedIndex(0); tfDc.setText(""); cbIns.setSelectedIndex(0); cbPuc.setSelectedIndex(0); cbBy.setSelectedIndex(0); cbThen.setSelectedIndex(0); allModel.setFilter(null); result.setText(" "); });
+        return bar;
+    }
 
-    private JPanel pucPanel() { JPanel p = new JPanel(new GridBagLayout()); p.setBorder(new EmptyBorder(18,18,18,18)); GridBagConstraints c = new GridBagConstraints(); c.insets = new Insets(8,8,8,8); c.fill = GridBagConstraints.HORIZONTAL; JTextField tfReg = new JTextField(18); JTextField tfExpiry = new JTextField(12); JLabel msg = new JLabel(" "); msg.setForeground(new Color(10,90,10)); c.gridx=0; c.gridy=0; p.add(new JLabel("Registration No:"), c); c.gridx=1; p.add(tfReg, c); c.gridx=0; c.gridy=1; p.add(new JLabel("PUC Expiry (YYYY-MM-DD):"), c); c.gridx=1; p.add(tfExpiry, c); JButton btn = new JButton("Issue PUC"); c.gridx=1; c.gridy=2; p.add(btn, c); c.gridx=1; c.gridy=3; p.add(msg, c); btn.addActionListener(e -> { Vehicle v = findVehicleByReg(tfReg.getText().trim()); if (v==null) { msg.setText("Vehicle not found"); return; } try { LocalDate d = LocalDate.parse(tfExpiry.getText().trim()); v.issuePUC(d); Storage.save(vehicles); msg.setText("PUC issued"); refreshSummary(v); } catch(Exception ex) { msg.setText("Invalid date"); } }); return p; }
+    // ---------- Batch RC printing ----------
+    // Certificates for the rows View All shows (the filter's matches, or everything); rendering runs on the printer's own pool.
+    private void printRcs(JButton btn, JLabel result) {
+        JFileChooser chooser = new JFileChooser(); chooser.setDialogTitle("Folder for RC certificates"); chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Object[] formats = {"PDF (one file per district)", "PNG (one file per vehicle)"};
+        int choice = JOptionPane.showOptionDialog(this, "Print " + allModel.getRowCount() + " certificate(s) as:", "Print RCs", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, formats, formats[0]);
+        if (choice < 0) return;
+        RcCertificatePrinter.Format fmt = choice == 0 ? RcCertificatePrinter.Format.PDF : RcCertificatePrinter.Format.PNG;
+        List<Vehicle> rows = new ArrayList<>(allModel.getRowCount());
+        for (int i = 0; i < allModel.getRowCount(); i++) rows.add(allModel.vehicleAt(i));
+        File dir = chooser.getSelectedFile();
+        btn.setEnabled(false);
+
+        JDialog dlg = new JDialog(this, "Printing RCs", false);
+        JProgressBar bar = new JProgressBar(0, Math.max(1, rows.size())); bar.setStringPainted(true);
+        JButton btnCancel = new JButton("Cancel");
+        JPanel body = new JPanel(new BorderLayout(8,8)); body.setBorder(new EmptyBorder(12,12,12,12));
+        body.add(new JLabel("Printing " + rows.size() + " certificate(s) to " + dir.getName()), BorderLayout.NORTH); body.add(bar, BorderLayout.CENTER); body.add(btnCancel, BorderLayout.SOUTH);
+        dlg.setContentPane(body); dlg.pack(); dlg.setSize(Math.max(dlg.getWidth(), 380), dlg.getHeight()); dlg.setLocationRelativeTo(this);
+
+        // checked between batches, so files already written stay complete
+        AtomicBoolean cancelled = new AtomicBoolean();
+        new SwingWorker<RcCertificatePrinter.Result, Integer>() {
+            @Override protected RcCertificatePrinter.Result doInBackground() throws Exception {
+                return RcCertificatePrinter.print(rows, dir.toPath(), fmt, Runtime.getRuntime().availableProcessors(), VehicleSystemPortal.this::rcText, (done, total) -> { publish(done); return !cancelled.get(); });
+            }
+            @Override protected void process(List<Integer> chunks) { bar.setValue(chunks.get(chunks.size() - 1)); }
+            @Override protected void done() {
+                dlg.dispose(); btn.setEnabled(true);
+                try { result.setText("Printed " + get()); }
+                catch (Exception ex) { Throwable cause = ex.getCause() != null ? ex.getCause() : ex; result.setText("Print failed: " + cause.getMessage()); }
+            }
+        }.execute();
+        btnCancel.addActionListener(e -> { cancelled.set(true); btnCancel.setEnabled(false); });
+        dlg.setVisible(true);
+    }
 
-    private JPanel viewAllPanel() { JPanel p = new JPanel(new BorderLayout()); p.setBorder(new EmptyBorder(12,12,12,12)); JLabel h = new JLabel("All Registered Vehicles"); h.setFont(new Font("SansSerif", Font.BOLD, 16)); p.add(h, BorderLayout.NORTH); JTextArea ta = new JTextArea(); ta.setEditable(false); JScrollPane sp = new JScrollPane(ta); p.add(sp, BorderLayout.CENTER); StringBuilder sb = new StringBuilder(); for (Vehicle v : vehicles) sb.append(v.detailedInfo()).append("\n--------------------\n"); if (vehicles.isEmpty()) sb.append("No vehicles yet."); ta.setText(sb.toString()); return p; }
+    private static String[] withAny(String[] values) { String[] out = new String[values.length + 1]; out[0] = ANY; System.arraycopy(values, 0, out, 1, values.length); return out; }
+    private static BitmapIndex.Field groupField(int i) { return i == 0 ? null : new BitmapIndex.Field[]{BitmapIndex.Field.STATE, BitmapIndex.Field.TYPE, BitmapIndex.Field.DISTRICT_CODE, BitmapIndex.Field.INSURED, BitmapIndex.Field.PUC}[i - 1]; }
+    // choice is an index into VALIDITY
+    private static void validity(BitmapIndex.Query q, BitmapIndex.Field flag, ExpiryIndex.Kind kind, int choice) {
+        switch (choice) { case 1: q.where(flag, "Yes"); break; case 2: q.where(flag, "No"); break; case 3: q.valid(kind, true); break; case 4: q.valid(kind, false); break; default: }
+    }
+
+    private void showGroups(String title, Map<?, ?> groups) {
+        StringBuilder sb = new StringBuilder();
+        groups.forEach((k, v) -> { if (v instanceof Map) { sb.append(k).append('\n'); ((Map<?, ?>) v).forEach((k2, n) -> sb.append(String.format(Locale.ROOT, "    %-22s %,10d%n", k2, n))); } else sb.append(String.format(Locale.ROOT, "%-26s %,10d%n", k, v)); });
+        JPanel card = new JPanel(new BorderLayout()); card.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(new Color(220,220,220)), new EmptyBorder(10,10,10,10)));
+        JLabel t = new JLabel("Count by " + title); t.setFont(new Font("SansSerif", Font.BOLD, 14)); card.add(t, BorderLayout.NORTH);
+        JTextArea ta = new JTextArea(groups.isEmpty() ? "No matching vehicles." : sb.toString()); ta.setEditable(false); ta.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        JScrollPane sp = new JScrollPane(ta); sp.setPreferredSize(new Dimension(300, 420)); card.add(sp, BorderLayout.CENTER);
+        showRightCard(card);
+    }
+
+    private JPanel renewalsPanel() {
+        JPanel p = new JPanel(new BorderLayout()); p.setBorder(new EmptyBorder(18,18,18,18));
+        JLabel h = new JLabel("Insurance / PUC Renewals"); h.setFont(new Font("SansSerif", Font.BOLD, 16));
+        JComboBox<ExpiryIndex.Kind> cbKind = new JComboBox<>(ExpiryIndex.Kind.values());
+        JSpinner spDays = new JSpinner(new SpinnerNumberModel(RENEWAL_WINDOW_DAYS, 1, 365, 1));
+        JButton btnDue = new JButton("Expiring Soon"); JButton btnLapsed = new JButton("Already Lapsed");
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT,8,8)); bar.add(cbKind); bar.add(new JLabel("within days:")); bar.add(spDays); bar.add(btnDue); bar.add(btnLapsed);
+        JPanel top = new JPanel(new BorderLayout()); top.add(h, BorderLayout.NORTH); top.add(bar, BorderLayout.CENTER); p.add(top, BorderLayout.NORTH);
+        JTextArea ta = new JTextArea(); ta.setEditable(false); ta.setFont(new Font("Monospaced", Font.PLAIN, 12)); p.add(new JScrollPane(ta), BorderLayout.CENTER);
+        // scans and report text are built on the command worker; only setText runs on the EDT
+        BiConsumer<String, Throwable> show = (text, err) -> { if (err != null) { failed(err); return; } ta.setText(text); ta.setCaretPosition(0); };
+        btnDue.addActionListener(e -> { ExpiryIndex.Kind k = (ExpiryIndex.Kind) cbKind.getSelectedItem(); int days = (Integer) spDays.getValue(); ta.setText("Searching…"); commands.run(() -> { LocalDate today = LocalDate.now(); return renewalReport(k, expiryIndex.expiring(k, today, today.plusDays(days))); }, show); });
+        btnLapsed.addActionListener(e -> { ExpiryIndex.Kind k = (ExpiryIndex.Kind) cbKind.getSelectedItem(); ta.setText("Searching…"); commands.run(() -> renewalReport(k, expiryIndex.lapsed(k, LocalDate.now())), show); });
+        return p;
+    }
+
+    private static String renewalReport(ExpiryIndex.Kind kind, List<Vehicle> list) {
+        final int limit = 5000;
+        StringBuilder sb = new StringBuilder(); sb.append(list.size()).append(" vehicle(s)\n\n");
+        for (int i = 0; i < Math.min(limit, list.size()); i++) { Vehicle v = list.get(i); sb.append(ExpiryIndex.expiry(v, kind)).append("  ").append(v.getRegNumber()).append("  ").append(v.owner()).append('\n'); }
+        if (list.size() > limit) sb.append("... ").append(list.size() - limit).append(" more");
+        return sb.toString();
+    }
+
+    // Runs on the sweeper thread; only the label update goes back to the EDT.
+    private void sweepRenewals() {
+        LocalDate today = LocalDate.now(), until = today.plusDays(RENEWAL_WINDOW_DAYS);
+        String text = "Insurance: " + expiryIndex.countLapsed(ExpiryIndex.Kind.INSURANCE, today) + " lapsed, " + expiryIndex.countExpiring(ExpiryIndex.Kind.INSURANCE, today, until) + " due"
+                + "   |   PUC: " + expiryIndex.countLapsed(ExpiryIndex.Kind.PUC, today) + " lapsed, " + expiryIndex.countExpiring(ExpiryIndex.Kind.PUC, today, until) + " due";
+        SwingUtilities.invokeLater(() -> lblRenewals.setText(text));
+    }
 
     // ---------- Helpers ----------
-    private void refreshRightPlaceholder() { pnlRight.removeAll(); pnlRight.add(summaryCardPlaceholder(), BorderLayout.NORTH); pnlRight.revalidate(); pnlRight.repaint(); }
+    // The placeholder and RC cards are built once; refreshes only swap the visible card and replace text.
+    private JPanel placeholderCard, rcCard;
+    private final JButton btnPrintRc = new JButton("Print…");
+    private Vehicle rcShown;   // vehicle in the RC preview, null for the pre-registration preview
+    private void refreshRightPlaceholder() { if (placeholderCard == null) placeholderCard = summaryCardPlaceholder(); showRightCard(placeholderCard); }
     private JPanel summaryCardPlaceholder() { JPanel card = new JPanel(new BorderLayout()); card.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(new Color(200,200,200)), new EmptyBorder(10,10,10,10))); JLabel ttl = new JLabel("Registration Summary", SwingConstants.CENTER); ttl.setFont(new Font("SansSerif", Font.BOLD, 16)); card.add(ttl, BorderLayout.NORTH); JTextArea ta = new JTextArea(); ta.setEditable(false); ta.setFont(new Font("Monospaced", Font.PLAIN, 12)); ta.setText("Generate a registration number then register to see the RC preview here.\n\nAfter registration you can issue Insurance or PUC using the registration number."); card.add(new JScrollPane(ta), BorderLayout.CENTER); return card; }
-    private void refreshSummary(Vehicle v) { pnlRight.removeAll(); JPanel card = new JPanel(new BorderLayout()); card.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(new Color(220,220,220)), new EmptyBorder(12,12,12,12))); JLabel title = new JLabel("RC Preview", SwingConstants.CENTER); title.setFont(new Font("SansSerif", Font.BOLD, 15)); card.add(title, BorderLayout.NORTH); JTextArea ta = new JTextArea(); ta.setEditable(false); ta.setFont(new Font("Monospaced", Font.PLAIN, 12)); if (v==null) { String gen = lblGeneratedReg.getText(); if (gen==null || gen.equals("—")) ta.setText("No registration generated yet. Use Preview Reg No to see RC here."); else ta.setText("Reg No: "+gen+"\nOwner: "+tfOwner.getText()+"\nModel: "+tfModel.getText()); } else { ta.setText(v.detailedInfo()); } card.add(new JScrollPane(ta), BorderLayout.CENTER); JPanel footer = new JPanel(new FlowLayout(FlowLayout.CENTER)); JButton btnPrint = new JButton("Print (disabled)"); btnPrint.setEnabled(false); footer.add(btnPrint); card.add(footer, BorderLayout.SOUTH); pnlRight.add(card, BorderLayout.NORTH); pnlRight.revalidate(); pnlRight.repaint(); }
-
-    private void loadAllToSummary() { JPanel card = new JPanel(new BorderLayout()); card.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(new Color(220,220,220)), new EmptyBorder(10,10,10,10))); JLabel t = new JLabel("All Vehicles (quick view)"); t.setFont(new Font("SansSerif", Font.BOLD, 14)); card.add(t, BorderLayout.NORTH); JTextArea ta = new JTextArea(); ta.setEditable(false); StringBuilder sb = new StringBuilder(); for (Vehicle v : vehicles) sb.append(v.getRegNumber()).append(" — ").append(v.owner()).append("\n"); if (vehicles.isEmpty()) sb.append("No vehicles registered yet."); ta.setText(sb.toString()); card.add(new JScrollPane(ta), BorderLayout.CENTER); pnlRight.removeAll(); pnlRight.add(card, BorderLayout.NORTH); pnlRight.revalidate(); pnlRight.repaint(); }
+    private JPanel rcPreviewCard() { JPanel card = new JPanel(new BorderLayout()); card.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(new Color(220,220,220)), new EmptyBorder(12,12,12,12))); JLabel title = new JLabel("RC Preview", SwingConstants.CENTER); title.setFont(new Font("SansSerif", Font.BOLD, 15)); card.add(title, BorderLayout.NORTH); taSummary.setEditable(false); taSummary.setFont(new Font("Monospaced", Font.PLAIN, 12)); card.add(new JScrollPane(taSummary), BorderLayout.CENTER); JPanel footer = new JPanel(new FlowLayout(FlowLayout.CENTER)); btnPrintRc.addActionListener(e -> printRc()); footer.add(btnPrintRc); card.add(footer, BorderLayout.SOUTH); return card; }
+    // A vehicle's RC text is read on the command worker; a reply is dropped if a newer refresh was asked for meanwhile.
+    private int summaryRequest;
+    private void refreshSummary(Vehicle v) { int request = ++summaryRequest; if (v==null) { String gen = lblGeneratedReg.getText(); showSummary(null, gen==null || gen.equals("—") ? "No registration generated yet. Use Preview Reg No to see RC here." : "Reg No: "+gen+"\nOwner: "+tfOwner.getText()+"\nModel: "+tfModel.getText()); return; } commands.run(() -> rcText(v), (text, err) -> { if (request != summaryRequest) return; if (err != null) { failed(err); return; } showSummary(v, text); }); }
+    private void showSummary(Vehicle v, String text) { if (rcCard == null) rcCard = rcPreviewCard(); rcShown = v; btnPrintRc.setEnabled(v != null); if (!text.equals(taSummary.getText())) { taSummary.setText(text); taSummary.setCaretPosition(0); } showRightCard(rcCard); }
+    private void showRightCard(JPanel card) { if (pnlRight.getComponentCount() == 1 && pnlRight.getComponent(0) == card) return; pnlRight.removeAll(); pnlRight.add(card, BorderLayout.NORTH); pnlRight.revalidate(); pnlRight.repaint(); }
+    // Saves the previewed RC as a certificate; a .png name gives an image, anything else a PDF
+    private void printRc() { Vehicle v = rcShown; if (v == null) return; JFileChooser chooser = new JFileChooser(); chooser.setDialogTitle("Save RC certificate (.pdf or .png)"); chooser.setSelectedFile(new File(RcCertificatePrinter.fileName(v).replace(".png", ".pdf"))); if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return; File f = chooser.getSelectedFile(); RcCertificatePrinter.Format fmt = f.getName().toLowerCase(Locale.ROOT).endsWith(".png") ? RcCertificatePrinter.Format.PNG : RcCertificatePrinter.Format.PDF; File out = fmt == RcCertificatePrinter.Format.PDF && !f.getName().toLowerCase(Locale.ROOT).endsWith(".pdf") ? new File(f.getPath() + ".pdf") : f; commands.run(() -> { RcCertificatePrinter.printOne(rcText(v), out.toPath(), fmt); return out; }, (file, err) -> JOptionPane.showMessageDialog(this, err != null ? "Print failed: " + err.getMessage() : "Saved RC to: " + file.getAbsolutePath())); }
+    // Rendered under the vehicle's lock so the cached text never mixes two updates.
+    private String rcText(Vehicle v) { return registry.read(v, v::detailedInfo); }
+
+    private void loadAllToSummary() {
+        JPanel card = new JPanel(new BorderLayout()); card.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(new Color(220,220,220)), new EmptyBorder(10,10,10,10)));
+        JLabel t = new JLabel("All Vehicles (quick view)"); t.setFont(new Font("SansSerif", Font.BOLD, 14)); card.add(t, BorderLayout.NORTH);
+        // rows are formatted on demand; the prototype cell keeps JList from measuring every entry
+        JList<String> list = new JList<>(new AbstractListModel<String>() {
+            public int getSize() { return Math.max(1, vehicles.size()); }
+            public String getElementAt(int i) { if (vehicles.isEmpty()) return "No vehicles registered yet."; Vehicle v = vehicles.get(i); return v.getRegNumber() + " — " + v.owner(); }
+        });
+        list.setPrototypeCellValue("XX 00 XX 0000 — XXXXXXXXXXXXXXXXXXXX");
+        JScrollPane sp = new JScrollPane(list); sp.setPreferredSize(new Dimension(300, 420)); card.add(sp, BorderLayout.CENTER);
+        showRightCard(card);
+    }
 
-    private Vehicle findVehicleByReg(String reg) { if (reg==null) return null; for (Vehicle v : vehicles) if (v.getRegNumber().equalsIgnoreCase(reg.trim())) return v; return null; }
-    private void doFind() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number"); return; } Vehicle v = findVehicleByReg(r); if (v==null) { JOptionPane.showMessageDialog(this, "Vehicle not found for: " + r); return; } refreshSummary(v); JOptionPane.showMessageDialog(this, v.detailedInfo()); }
-    private void showInsurance() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number"); return; } Vehicle v = findVehicleByReg(r); if (v==null) { JOptionPane.showMessageDialog(this, "Vehicle not found"); return; } if (!v.hasInsurance) JOptionPane.showMessageDialog(this, "No insurance issued for " + r); else JOptionPane.showMessageDialog(this, "Insurance: " + v.insuranceProvider + " until " + v.insuranceExpiry); }
-    private void showPUC() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number"); return; } Vehicle v = findVehicleByReg(r); if (v==null) { JOptionPane.showMessageDialog(this, "Vehicle not found"); return; } if (!v.hasPUC) JOptionPane.showMessageDialog(this, "No PUC issued for " + r); else JOptionPane.showMessageDialog(this, "PUC valid until " + v.pucExpiry); }
-    private void doChallanPayment() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number to pay challan"); return; } Vehicle v = findVehicleByReg(r); if (v==null) { JOptionPane.showMessageDialog(this, "Vehicle not found for: " + r); return; } if (v.challanAmount == 0) { v.challanAmount = Math.round((500 + Math.random()*4500)); } String amt = JOptionPane.showInputDialog(this, "Challan due: ₹" + v.challanAmount + "\nEnter amount to pay:"); try { double pay = Double.parseDouble(amt); v.payChallan(pay); Storage.save(vehicles); JOptionPane.showMessageDialog(this, "Payment accepted. Remaining challan: ₹" + v.challanAmount); refreshSummary(v); } catch (Exception ex) { JOptionPane.showMessageDialog(this, "Invalid amount or cancelled"); } }
+    private Vehicle findVehicleByReg(String reg) { return registry.find(reg); }
+    private void doFind() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number"); return; } commands.run(() -> { Vehicle v = findVehicleByReg(r); return v == null ? null : new Object[]{v, rcText(v)}; }, (found, err) -> { if (err != null) { failed(err); return; } if (found==null) { JOptionPane.showMessageDialog(this, "Vehicle not found for: " + r); return; } summaryRequest++; showSummary((Vehicle) found[0], (String) found[1]); JOptionPane.showMessageDialog(this, found[1]); }); }
+    private void showInsurance() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number"); return; } commands.run(() -> { Vehicle v = findVehicleByReg(r); if (v==null) return "Vehicle not found"; return registry.read(v, () -> !v.hasInsurance ? "No insurance issued for " + r : "Insurance: " + v.insuranceProvider() + " until " + v.insuranceExpiry()); }, (text, err) -> JOptionPane.showMessageDialog(this, err != null ? err.getMessage() : text)); }
+    private void showPUC() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number"); return; } commands.run(() -> { Vehicle v = findVehicleByReg(r); if (v==null) return "Vehicle not found"; return registry.read(v, () -> !v.hasPUC ? "No PUC issued for " + r : "PUC valid until " + v.pucExpiry()); }, (text, err) -> JOptionPane.showMessageDialog(this, err != null ? err.getMessage() : text)); }
+    // Looks up the balance in the background, then asks on the EDT: a fine to issue when nothing is due, otherwise a payment.
+    private void doChallanPayment() { String r = tfLookupReg.getText().trim(); if (r.isEmpty()) { JOptionPane.showMessageDialog(this, "Enter registration number to pay challan"); return; } commands.run(() -> { Vehicle v = findVehicleByReg(r); return v == null ? null : new Object[]{v, registry.challanDue(v)}; }, (found, err) -> { if (err != null) { failed(err); return; } if (found==null) { JOptionPane.showMessageDialog(this, "Vehicle not found for: " + r); return; } Vehicle v = (Vehicle) found[0]; double due = (Double) found[1]; if (due == 0) issueChallan(v); else payChallan(v, due); }); }
+    private void issueChallan(Vehicle v) { Double fine = askAmount("No challan due for " + v.getRegNumber() + ".\nEnter fine to issue (₹):"); if (fine == null) return; commands.run(() -> { registry.addChallan(v, fine); return registry.challanDue(v); }, (due, err) -> { if (challanFailed(err)) return; allModel.vehicleChanged(v.index); JOptionPane.showMessageDialog(this, "Challan issued. Amount due: ₹" + due); refreshSummary(v); }); }
+    private void payChallan(Vehicle v, double due) { Double pay = askAmount("Challan due: ₹" + due + "\nEnter amount to pay:"); if (pay == null) return; commands.run(() -> registry.payChallan(v, pay), (left, err) -> { if (challanFailed(err)) return; allModel.vehicleChanged(v.index); JOptionPane.showMessageDialog(this, "Payment accepted. Remaining challan: ₹" + left); refreshSummary(v); }); }
+    private Double askAmount(String prompt) { String amt = JOptionPane.showInputDialog(this, prompt); try { return Double.parseDouble(amt); } catch (Exception ex) { JOptionPane.showMessageDialog(this, "Invalid amount or cancelled"); return null; } }
+    // the registry rejects amounts that are not positive, finite and within the ledger cap
+    private boolean challanFailed(Throwable err) { if (err instanceof IllegalArgumentException) JOptionPane.showMessageDialog(this, err.getMessage()); else if (err != null) failed(err); return err != null; }
+    private void failed(Throwable err) { JOptionPane.showMessageDialog(this, err instanceof RejectedExecutionException ? err.getMessage() : "Operation failed: " + err); }
+
+    // Queued commands and any pending snapshot finish first, then one final snapshot before the JVM exits.
+    private boolean exiting;
+    private void exitPortal() { if (exiting) return; exiting = true; setTitle("Vehicle Portal - saving..."); setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR)); sweeper.shutdownNow(); commands.shutdown(registry::save).whenComplete((r, err) -> { if (err != null) err.printStackTrace(); System.exit(0); }); }
 
     private void clearRegistrationForm() { tfOwner.setText(""); tfBrand.setText(""); tfModel.setText(""); tfDistrict.setText(""); tfDistrictCode.setText(""); lblGeneratedReg.setText("—"); }
 
+    // ---------- Registration index ----------
+    /** Canonical lookup key: upper case with all whitespace removed, so "mh 12 ab 0001" matches "MH 12 AB 0001". */
+    static String canonicalReg(String reg) {
+        StringBuilder sb = new StringBuilder(reg.length());
+        for (int i = 0; i < reg.length(); i++) {
+            char c = reg.charAt(i);
+            if (!Character.isWhitespace(c)) sb.append(Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+
     // ---------- Reg number generation ----------
-    private String generateRegNumber(String stateFull, String districtFull, String districtCode) {
-        String stCode = extractStateCode(stateFull);
-        String distCode = formatDistrictCode(districtCode);
-        String key = stCode + "|" + distCode;
-        int seriesIdx = seriesTracker.getOrDefault(key, 0);
-        int num = numberTracker.getOrDefault(key, 0) + 1;
-        if (num > 9999) { seriesIdx++; num = 1; }
-        seriesTracker.put(key, seriesIdx); numberTracker.put(key, num);
-        String series = seriesIndexToString(seriesIdx);
-        String number = String.format("%04d", num);
+    // The preview only peeks at the district's counter; the number is allocated on Register.
+    private String previewRegNumber(String stateFull, String districtCode) {
+        return registry.previewRegNumber(stateFull, districtCode);
+    }
+    static String formatRegNumber(String stCode, String distCode, long seq) {
+        String series = seriesIndexToString(RegNumberAllocator.seriesIndex(seq));
+        String number = String.format("%04d", RegNumberAllocator.numberInSeries(seq));
         return stCode + " " + distCode + " " + series + " " + number;
     }
 
@@ -312,11 +914,14 @@ public class VehicleSystemPortal extends JFrame {
         char b = (char) ('A' + Math.max(0, Math.min(25, low)));
         return "" + a + b;
     }
-    private static String extractStateCode(String stateFull) {
+    static String unreadableReport() { StringBuilder sb = new StringBuilder(); Storage.unreadableShards().forEach((code, why) -> sb.append(code).append(": ").append(why).append('\n')); return sb.toString(); }
+    static boolean isKnownState(String stateFull) { return STATE_CODES.containsKey(stateFull); }
+    static boolean isKnownType(String type) { return Arrays.asList(VEHICLE_TYPES).contains(type); }
+    static String extractStateCode(String stateFull) {
         if (stateFull == null) return "XX";
         return STATE_CODES.getOrDefault(stateFull, "XX");
     }
-    private static String formatDistrictCode(String d) {
+    static String formatDistrictCode(String d) {
         String t = d.trim();
         if (t.matches("\\d{2}")) return t;                  // 01, 32, 27
         if (t.matches("[A-Za-z]{2}")) return t.toUpperCase(); // AA, DL etc.
@@ -324,28 +929,73 @@ public class VehicleSystemPortal extends JFrame {
     }
     private static String extractDistrictCodeFromName(String districtFull) { if (districtFull==null) return "00"; String cleaned = districtFull.replaceAll("[^A-Za-z]", ""); if (cleaned.length()>=2) return cleaned.substring(0,2).toUpperCase(); return "00"; }
 
+    // ---------- CSV import ----------
+    private void importCSV() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import vehicles CSV");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File f = chooser.getSelectedFile();
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<CsvImporter.Result,Void>() {
+            // reading, numbering and the journal write all stay on the worker thread
+            @Override protected CsvImporter.Result doInBackground() throws Exception { CsvImporter.Result r = CsvImporter.read(f.toPath(), registry.allocator()); registry.addAll(r.accepted); return r; }
+            @Override protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                CsvImporter.Result r;
+                try { r = get(); }
+                catch (Exception ex) { Throwable c = ex.getCause() != null ? ex.getCause() : ex; JOptionPane.showMessageDialog(VehicleSystemPortal.this, "Import failed: " + c.getMessage()); return; }
+                if (!r.accepted.isEmpty()) allModel.vehiclesAdded(r.accepted.get(0).index, r.accepted.get(r.accepted.size() - 1).index);
+                StringBuilder sb = new StringBuilder();
+                sb.append("Imported: ").append(r.accepted.size()).append("\nRejected: ").append(r.rejected.size()).append("\n");
+                for (int i = 0; i < Math.min(500, r.rejected.size()); i++) sb.append('\n').append(r.rejected.get(i));
+                if (r.rejected.size() > 500) sb.append("\n... ").append(r.rejected.size() - 500).append(" more");
+                JTextArea ta = new JTextArea(sb.toString(), 14, 48); ta.setEditable(false);
+                JOptionPane.showMessageDialog(VehicleSystemPortal.this, new JScrollPane(ta), "CSV Import", JOptionPane.INFORMATION_MESSAGE);
+                if (!r.accepted.isEmpty()) refreshSummary(r.accepted.get(r.accepted.size() - 1));
+            }
+        }.execute();
+    }
+
     // ---------- CSV export ----------
+    // Streams on a SwingWorker over a snapshot of the list; the dialog shows progress and can cancel.
     private void exportCSV() {
         JFileChooser chooser = new JFileChooser();
         chooser.setDialogTitle("Save vehicles CSV");
         int sel = chooser.showSaveDialog(this);
-        if (sel == JFileChooser.APPROVE_OPTION) {
-            File f = chooser.getSelectedFile();
-            try (PrintWriter pw = new PrintWriter(f)) {
-                pw.println("RegNumber,Owner,Type,Brand,Model,State,District,DistrictCode,RegisteredDate,Challan,HasInsurance,InsuranceExpiry,HasPUC,PUCExpiry");
-                DateTimeFormatter df = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-                for (Vehicle v : vehicles) {
-                    pw.printf("\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",%.2f,%b,%s,%b,%s\n", v.regNumber, escapeCsv(v.owner), v.type, escapeCsv(v.brand), escapeCsv(v.model), escapeCsv(v.state), escapeCsv(v.district), escapeCsv(v.districtCode), v.registrationDate.format(df), v.challanAmount, v.hasInsurance, v.insuranceExpiry == null ? "" : v.insuranceExpiry.toString(), v.hasPUC, v.pucExpiry == null ? "" : v.pucExpiry.toString());
+        if (sel != JFileChooser.APPROVE_OPTION) return;
+        File f = chooser.getSelectedFile();
+        Vehicle[] rows = registry.snapshot();
+
+        JDialog dlg = new JDialog(this, "Exporting CSV", false);
+        JProgressBar bar = new JProgressBar(0, Math.max(1, rows.length)); bar.setStringPainted(true);
+        JButton btnCancel = new JButton("Cancel");
+        JPanel body = new JPanel(new BorderLayout(8,8)); body.setBorder(new EmptyBorder(12,12,12,12));
+        body.add(new JLabel("Writing " + rows.length + " vehicles to " + f.getName()), BorderLayout.NORTH); body.add(bar, BorderLayout.CENTER); body.add(btnCancel, BorderLayout.SOUTH);
+        dlg.setContentPane(body); dlg.pack(); dlg.setSize(Math.max(dlg.getWidth(), 380), dlg.getHeight()); dlg.setLocationRelativeTo(this);
+
+        // cancellation is a flag rather than SwingWorker.cancel so done() only runs once the file is closed
+        AtomicBoolean cancelled = new AtomicBoolean();
+        SwingWorker<Integer,Integer> worker = new SwingWorker<Integer,Integer>() {
+            @Override protected Integer doInBackground() throws Exception {
+                long t0 = System.nanoTime();
+                try { return CsvExporter.export(rows, f.toPath(), (done, total) -> { publish(done); return !cancelled.get(); }); }
+                finally { PortalMetrics.EXPORT.record(t0); }
+            }
+            @Override protected void process(List<Integer> chunks) { bar.setValue(chunks.get(chunks.size() - 1)); }
+            @Override protected void done() {
+                dlg.dispose();
+                try {
+                    if (get() < 0) { f.delete(); JOptionPane.showMessageDialog(VehicleSystemPortal.this, "Export cancelled"); }
+                    else JOptionPane.showMessageDialog(VehicleSystemPortal.this, "Exported to: " + f.getAbsolutePath());
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(VehicleSystemPortal.this, "Export failed: " + cause.getMessage());
                 }
-                JOptionPane.showMessageDialog(this, "Exported to: " + f.getAbsolutePath());
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage());
             }
-        }
-    }
-
-    private static String escapeCsv(String s) {
-        return s == null ? "" : s.replace("\"", "\"\"");
+        };
+        btnCancel.addActionListener(e -> { cancelled.set(true); btnCancel.setEnabled(false); });
+        worker.execute();
+        dlg.setVisible(true);
     }
 
     // ---------- Main ----------
@@ -353,7 +1003,10 @@ public class VehicleSystemPortal extends JFrame {
 //        SwingUtilities.invokeLater(VehicleSystemPortal::new);
 //    }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        PortalMetrics.install();
+        if (args.length > 0 && args[0].equals("--headless")) { RegistryHttpServer.runHeadless(args); return; }
+        PortalMetrics.startEdtWatchdog(Long.getLong("portal.edt.stallMillis", 200));
         SwingUtilities.invokeLater(() -> new LoginFrame().setVisible(true));
     }
 
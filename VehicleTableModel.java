@@ -0,0 +1,83 @@
+package VehicleIdentificationSystem;
+
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * VehicleTableModel - live, lazily rendered view of the vehicle list for the View All table
+ * - Cells are read straight from the backing list when JTable paints a visible row
+ * - Callers report additions/changes so the table and its sorter stay current
+ * - The row count only grows when an addition is reported on the EDT, so vehicles appended by
+ *   a background command never show up before their insert event
+ * - setFilter() narrows the rows to given list positions (a BitmapIndex match); additions reported
+ *   while filtered are counted but not shown until the filter is cleared or re-run
+ */
+class VehicleTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"Reg No", "Owner", "Type", "Brand", "Model", "State", "District", "Registered", "Insurance Until", "PUC Until", "Challan (₹)"};
+    private static final Class<?>[] TYPES = {String.class, String.class, String.class, String.class, String.class, String.class, String.class, LocalDate.class, LocalDate.class, LocalDate.class, Double.class};
+
+    private final List<Vehicle> vehicles;
+    private int rows;
+    private int[] filter;   // ascending list positions shown, or null for every vehicle
+
+    VehicleTableModel(List<Vehicle> vehicles) {
+        this.vehicles = vehicles;
+        this.rows = vehicles.size();
+    }
+
+    @Override public int getRowCount() { return filter != null ? filter.length : rows; }
+    @Override public int getColumnCount() { return COLUMNS.length; }
+    @Override public String getColumnName(int c) { return COLUMNS[c]; }
+    @Override public Class<?> getColumnClass(int c) { return TYPES[c]; }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        Vehicle v = vehicleAt(row);
+        switch (col) {
+            case 0: return v.getRegNumber();
+            case 1: return v.owner;
+            case 2: return v.type();
+            case 3: return v.brand();
+            case 4: return v.model();
+            case 5: return v.state();
+            case 6: return v.district() + " (" + v.districtCode() + ")";
+            case 7: return v.registrationDate();
+            case 8: return v.hasInsurance ? v.insuranceExpiry() : null;
+            case 9: return v.hasPUC ? v.pucExpiry() : null;
+            default: return v.challanAmount;
+        }
+    }
+
+    Vehicle vehicleAt(int row) { return vehicles.get(filter != null ? filter[row] : row); }
+
+    /** Shows only the vehicles at the given ascending list positions; null shows all of them again. */
+    void setFilter(int[] positions) { filter = positions; fireTableDataChanged(); }
+
+    void vehicleAdded(int index) { vehiclesAdded(index, index); }
+    // from is informational: everything appended since the last report is inserted, in list order
+    void vehiclesAdded(int from, int to) {
+        if (to < rows) return;
+        int first = rows; rows = to + 1;
+        if (filter == null) fireTableRowsInserted(first, to);
+    }
+
+    void vehicleChanged(int index) {
+        int row = filter != null ? Arrays.binarySearch(filter, index) : index < rows ? index : -1;
+        if (index >= 0 && row >= 0) fireTableRowsUpdated(row, row);
+    }
+
+    /** Sorter using plain compareTo; the default Collator is far too slow for large registries. */
+    TableRowSorter<VehicleTableModel> sorter() {
+        TableRowSorter<VehicleTableModel> s = new TableRowSorter<>(this);
+        for (int c = 0; c < COLUMNS.length; c++) s.setComparator(c, Comparator.naturalOrder());
+        return s;
+    }
+}
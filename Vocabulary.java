@@ -0,0 +1,48 @@
+package VehicleIdentificationSystem;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vocabulary - grow-only dictionary of repeated strings (vehicle types, brands, states, ...)
+ * - id(s) returns a dense int id, assigning the next one the first time s is seen; text(id) maps back
+ * - Lookups are lock-free; new words are added under a lock, and an id is never reused or removed
+ * - Id 0 is null
+ */
+final class Vocabulary {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] words = new String[16];
+    private volatile int size = 1;
+
+    int id(String s) {
+        if (s == null) return 0;
+        Integer id = ids.get(s);
+        return id != null ? id : add(s);
+    }
+
+    /** Id of s without adding it: -1 if s was never seen. */
+    int find(String s) {
+        if (s == null) return 0;
+        Integer id = ids.get(s);
+        return id != null ? id : -1;
+    }
+
+    String text(int id) { return words[id]; }
+
+    /** Number of ids handed out, including 0 for null. */
+    int size() { return size; }
+
+    private synchronized int add(String s) {
+        Integer id = ids.get(s);
+        if (id != null) return id;
+        int n = size;
+        String[] w = words;
+        if (n == w.length) w = Arrays.copyOf(w, n * 2);
+        w[n] = s;
+        // publish the word before its id, so a reader holding the id always finds the text
+        words = w;
+        size = n + 1;
+        ids.put(s, n);
+        return n;
+    }
+}
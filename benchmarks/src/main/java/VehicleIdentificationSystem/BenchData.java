@@ -0,0 +1,53 @@
+package VehicleIdentificationSystem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * BenchData - shared fixtures for the JMH benchmarks
+ * - Points portal.data.dir at a scratch directory before any Storage class is initialised,
+ *   so benchmarks never touch the working copy's vehicles.bin, users.dat or regseq files
+ * - Vehicles come from StorageFormatBench.sample, the same synthetic registry the other harnesses use
+ */
+final class BenchData {
+    static final Path DIR;
+
+    static {
+        String configured = System.getProperty("portal.data.dir");
+        try {
+            if (configured != null) DIR = Path.of(configured);
+            else { DIR = Files.createTempDirectory("portal-bench"); DIR.toFile().deleteOnExit(); }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.setProperty("portal.data.dir", DIR.toString());
+    }
+
+    private BenchData() {}
+
+    static List<Vehicle> vehicles(int n) {
+        return StorageFormatBench.sample(n);
+    }
+
+    /** Removes every file in the scratch directory whose name starts with prefix. */
+    static void cleanPrefix(String prefix) {
+        try (var files = Files.list(DIR)) {
+            for (Path f : (Iterable<Path>) files::iterator) if (f.getFileName().toString().startsWith(prefix)) Files.deleteIfExists(f);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Removes the files a benchmark left in the scratch directory. */
+    static void clean(String... names) {
+        for (String name : names) {
+            try { Files.deleteIfExists(DIR.resolve(name)); }
+            catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package VehicleIdentificationSystem;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * PortalBenchmarks - entry point of benchmarks.jar
+ * - Same arguments as the stock JMH runner (regex filter, -p size=1000, -f, -wi, ...)
+ * - The GC profiler is always attached, so every result carries gc.alloc.rate and gc.alloc.rate.norm
+ */
+public class PortalBenchmarks {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(cli).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package VehicleIdentificationSystem;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * RegistryBenchmark - per-call hot paths over a populated registry
+ * - find: VehicleRegistry.find, the lookup behind findVehicleByReg, with the user's spacing and case
+ * - allocateRegNumber: the registration path's number generation (counter plus regseq journal write)
+ * - detailedInfo: the RC preview text
+ * - csvRow: one CsvExporter row into a reused buffer
+ * - search: type-ahead query (plate prefix, then owner tokens) for the top 10 matches
+ * - filterCount / filterRows: uninsured trucks in Maharashtra, counted and listed by bitmap intersection
+ * - countByTypePerDistrict: the View All two-level group-by over every vehicle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistryBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private VehicleRegistry registry;
+    private Vehicle[] vehicles;
+    private String[] lookups;
+    private final StringBuilder row = new StringBuilder(256);
+    private int next;
+    private final BitmapIndex.Query uninsuredTrucks = new BitmapIndex.Query()
+            .where(BitmapIndex.Field.STATE, "Maharashtra").where(BitmapIndex.Field.TYPE, "Truck").where(BitmapIndex.Field.INSURED, "No");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchData.clean("regseq.dat", "regseq.journal", "vehicles.journal");
+        List<Vehicle> list = BenchData.vehicles(size);
+        registry = VehicleRegistry.inMemory(list);
+        vehicles = list.toArray(new Vehicle[0]);
+        lookups = new String[vehicles.length];
+        for (int i = 0; i < vehicles.length; i++) {
+            String reg = vehicles[i].getRegNumber();
+            lookups[i] = i % 2 == 0 ? reg : reg.toLowerCase();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.clean("regseq.dat", "regseq.journal", "vehicles.journal");
+    }
+
+    // stride through the array so successive calls do not hit the same cache lines
+    private int nextIndex() {
+        int i = next;
+        next = (i + 7919) % vehicles.length;
+        return i;
+    }
+
+    @Benchmark
+    public Vehicle find() {
+        return registry.find(lookups[nextIndex()]);
+    }
+
+    @Benchmark
+    public String allocateRegNumber() {
+        Vehicle v = vehicles[nextIndex()];
+        return registry.allocateRegNumber(v.state(), v.districtCode());
+    }
+
+    @Benchmark
+    public List<Vehicle> search() {
+        // a partly typed plate: "MH 12 A"
+        String reg = vehicles[nextIndex()].getRegNumber();
+        return registry.search(reg.substring(0, Math.min(7, reg.length())), 10);
+    }
+
+    @Benchmark
+    public String detailedInfo() {
+        return vehicles[nextIndex()].detailedInfo();
+    }
+
+    @Benchmark
+    public void csvRow(Blackhole bh) {
+        row.setLength(0);
+        CsvExporter.appendRow(row, vehicles[nextIndex()]);
+        bh.consume(row);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int filterCount() {
+        return registry.count(uninsuredTrucks);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int[] filterRows() {
+        return registry.filter(uninsuredTrucks);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Map<String, Integer>> countByTypePerDistrict() {
+        return registry.countBy(new BitmapIndex.Query(), BitmapIndex.Field.DISTRICT_CODE, BitmapIndex.Field.TYPE);
+    }
+}
@@ -0,0 +1,57 @@
+package VehicleIdentificationSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import VehicleIdentificationSystem.VehicleSystemPortal.Storage;
+import VehicleIdentificationSystem.VehicleSystemPortal.Vehicle;
+
+/**
+ * StorageBenchmark - snapshot writes and startup load over the per-state shards
+ * - save: Storage.save, a full snapshot of every shard including the fsyncs and atomic renames
+ * - flushOneShard: one journaled change, then Storage.flush, which rewrites only that vehicle's shard
+ * - load: Storage.load from the shards with empty journals
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private List<Vehicle> vehicles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchData.cleanPrefix("vehicles");
+        vehicles = BenchData.vehicles(size);
+        Storage.save(vehicles);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.cleanPrefix("vehicles");
+    }
+
+    @Benchmark
+    public void save() {
+        Storage.save(vehicles);
+    }
+
+    @Benchmark
+    public void flushOneShard() {
+        Storage.append(vehicles.get(0));
+        Storage.flush(vehicles);
+    }
+
+    @Benchmark
+    public ArrayList<Vehicle> load() {
+        return Storage.load();
+    }
+}
@@ -0,0 +1,44 @@
+package VehicleIdentificationSystem;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * UserStoreBenchmark - User.loadUsers over a users.dat snapshot of hashed accounts
+ * - Accounts carry a 16-byte salt and 32-byte hash like CredentialService output;
+ *   hashes are not real, since only deserialization is being measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserStoreBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchData.clean("users.dat", "users.journal");
+        ArrayList<User> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte[] salt = new byte[16], hash = new byte[32];
+            salt[0] = (byte) i; hash[0] = (byte) (i >>> 8);
+            users.add(new User("user" + i, salt, hash, 210_000));
+        }
+        User.saveUsers(users);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchData.clean("users.dat", "users.dat.tmp", "users.journal");
+    }
+
+    @Benchmark
+    public ArrayList<User> loadUsers() {
+        return User.loadUsers();
+    }
+}